@@ -2,8 +2,10 @@ package com.onboarding;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OnboardingApplication {
     public static void main(String[] args) {
         SpringApplication.run(OnboardingApplication.class, args);
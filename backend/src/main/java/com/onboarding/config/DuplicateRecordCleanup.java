@@ -0,0 +1,109 @@
+package com.onboarding.config;
+
+import com.onboarding.model.UserProgress;
+import com.onboarding.model.UserQuiz;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes the duplicate {@code user_progress} and {@code user_quizzes} entries
+ * written before their unique indexes existed, so the indexes can be created.
+ * Of each group of duplicates the most advanced entry is kept. A collection is
+ * only scanned while its unique index is missing, so this effectively runs once.
+ */
+@Component
+public class DuplicateRecordCleanup {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateRecordCleanup.class);
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public DuplicateRecordCleanup(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @return the number of progress entries removed
+     */
+    public long removeDuplicateProgress() {
+        // Completed before in progress before not started, then the furthest and latest
+        Document statusRank = new Document("$addFields", new Document("statusRank",
+                new Document("$switch", new Document()
+                        .append("branches", List.of(
+                                new Document("case", new Document("$eq", List.of("$status", "COMPLETED")))
+                                        .append("then", 2),
+                                new Document("case", new Document("$eq", List.of("$status", "IN_PROGRESS")))
+                                        .append("then", 1)))
+                        .append("default", 0))));
+        Document order = new Document("statusRank", -1)
+                .append("completionPercentage", -1)
+                .append("lastAccessedAt", -1)
+                .append("_id", 1);
+        return removeDuplicates(UserProgress.class, "userId_moduleId", "moduleId", List.of(statusRank), order);
+    }
+
+    /**
+     * @return the number of quiz results removed
+     */
+    public long removeDuplicateQuizResults() {
+        Document order = new Document("completed", -1)
+                .append("score", -1)
+                .append("completedAt", -1)
+                .append("_id", 1);
+        return removeDuplicates(UserQuiz.class, "userId_quizId", "quizId", List.of(), order);
+    }
+
+    private long removeDuplicates(Class<?> type, String uniqueIndex, String keyField, List<Document> rankStages,
+            Document order) {
+        boolean indexed = mongoTemplate.indexOps(type).getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .anyMatch(uniqueIndex::equals);
+        if (indexed) {
+            return 0;
+        }
+
+        List<Document> pipeline = new ArrayList<>(rankStages);
+        pipeline.add(new Document("$sort", order));
+        pipeline.add(new Document("$group", new Document()
+                .append("_id", new Document("userId", "$userId").append(keyField, "$" + keyField))
+                .append("ids", new Document("$push", "$_id"))
+                .append("count", new Document("$sum", 1))));
+        pipeline.add(new Document("$match", new Document("count", new Document("$gt", 1))));
+
+        String collection = mongoTemplate.getCollectionName(type);
+        List<Object> duplicates = new ArrayList<>();
+        long removed = 0;
+        for (Document group : mongoTemplate.getCollection(collection).aggregate(pipeline).allowDiskUse(true)) {
+            List<?> ids = group.getList("ids", Object.class);
+            duplicates.addAll(ids.subList(1, ids.size()));
+            if (duplicates.size() >= DELETE_BATCH_SIZE) {
+                removed += delete(collection, duplicates);
+            }
+        }
+        removed += delete(collection, duplicates);
+
+        if (removed > 0) {
+            log.info("Removed {} duplicate documents from {}", removed, collection);
+        }
+        return removed;
+    }
+
+    private long delete(String collection, List<Object> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        long deleted = mongoTemplate.getCollection(collection)
+                .deleteMany(new Document("_id", new Document("$in", ids)))
+                .getDeletedCount();
+        ids.clear();
+        return deleted;
+    }
+}
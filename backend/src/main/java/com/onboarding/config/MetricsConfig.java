@@ -0,0 +1,26 @@
+package com.onboarding.config;
+
+import com.onboarding.metrics.RequestCommandListener;
+import com.onboarding.metrics.MongoCommandProfiler;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // Times the service classes annotated with @Timed
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer commandListenersCustomizer(MongoCommandProfiler mongoCommandProfiler) {
+        return builder -> builder
+                .addCommandListener(new RequestCommandListener())
+                .addCommandListener(mongoCommandProfiler);
+    }
+}
@@ -0,0 +1,57 @@
+package com.onboarding.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.List;
+
+@Configuration
+public class MongoConversionsConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(StringToInstantConverter.INSTANCE));
+    }
+
+    /**
+     * Reads timestamps that were stored as ISO strings before they became BSON
+     * dates, so documents not yet rewritten by {@link TimestampBackfill} still
+     * load. Strings without an offset were written from the server's local
+     * time. Unparseable values read as null.
+     */
+    @ReadingConverter
+    public enum StringToInstantConverter implements Converter<String, Instant> {
+
+        INSTANCE;
+
+        @Override
+        public Instant convert(String source) {
+            if (source.isBlank()) {
+                return null;
+            }
+            try {
+                TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(source.trim(),
+                        ZonedDateTime::from, LocalDateTime::from);
+                return parsed instanceof ZonedDateTime zoned ? zoned.toInstant()
+                        : ((LocalDateTime) parsed).atZone(ZoneId.systemDefault()).toInstant();
+            } catch (DateTimeParseException e) {
+                try {
+                    return LocalDate.parse(source.trim()).atStartOfDay(ZoneId.systemDefault()).toInstant();
+                } catch (DateTimeParseException ignored) {
+                    return null;
+                }
+            }
+        }
+    }
+}
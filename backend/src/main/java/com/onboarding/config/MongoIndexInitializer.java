@@ -0,0 +1,100 @@
+package com.onboarding.config;
+
+import com.onboarding.service.LeaderboardService;
+import com.onboarding.service.TraineeSummaryService;
+import com.onboarding.service.badge.AchievementStateReconciler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on the document models once the application
+ * is ready, after removing the duplicates that would block the unique ones.
+ * Runs before the other startup listeners so they read deduplicated data.
+ * Failures are logged instead of aborting startup, so the application still
+ * boots when MongoDB is temporarily unreachable.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final DuplicateRecordCleanup duplicateRecordCleanup;
+    private final LeaderboardService leaderboardService;
+    private final AchievementStateReconciler achievementStateReconciler;
+    private final TraineeSummaryService traineeSummaryService;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mappingContext,
+            DuplicateRecordCleanup duplicateRecordCleanup, LeaderboardService leaderboardService,
+            AchievementStateReconciler achievementStateReconciler, TraineeSummaryService traineeSummaryService) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.duplicateRecordCleanup = duplicateRecordCleanup;
+        this.leaderboardService = leaderboardService;
+        this.achievementStateReconciler = achievementStateReconciler;
+        this.traineeSummaryService = traineeSummaryService;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        removeDuplicates();
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        try {
+            for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+                if (entity.isAnnotationPresent(Document.class)) {
+                    ensureIndexes(resolver, entity);
+                }
+            }
+        } catch (DataAccessResourceFailureException e) {
+            log.warn("Index creation skipped: {}", e.getMessage());
+        }
+    }
+
+    private void ensureIndexes(IndexResolver resolver, MongoPersistentEntity<?> entity) {
+        IndexOperations indexOperations = mongoTemplate.indexOps(entity.getType());
+        for (IndexDefinition index : resolver.resolveIndexFor(entity.getTypeInformation())) {
+            try {
+                indexOperations.ensureIndex(index);
+            } catch (DataAccessResourceFailureException e) {
+                // MongoDB is unreachable, so the remaining indexes would fail too
+                throw e;
+            } catch (DataAccessException e) {
+                // e.g. remaining duplicates, which must not block the other indexes
+                log.warn("Index {} on collection {} skipped: {}", index.getIndexOptions().get("name"),
+                        entity.getCollection(), e.getMessage());
+            }
+        }
+    }
+
+    private void removeDuplicates() {
+        try {
+            long removed = duplicateRecordCleanup.removeDuplicateProgress()
+                    + duplicateRecordCleanup.removeDuplicateQuizResults();
+            if (removed > 0) {
+                // Scores, badge counters and summaries may include the removed entries
+                leaderboardService.rebuildLeaderboard();
+                achievementStateReconciler.requestReconciliation();
+                traineeSummaryService.requestRebuild();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Duplicate record cleanup skipped: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.onboarding.config;
+
+import com.onboarding.model.Leaderboard;
+import com.onboarding.model.User;
+import com.onboarding.model.UserQuiz;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Rewrites timestamps that were stored as ISO strings as BSON dates.
+ * <p>
+ * Only documents still holding a string in one of the fields are streamed, and
+ * they are written in unordered bulk batches of
+ * {@code timestamps.backfill.batch-size}. Each update is guarded by the string
+ * it replaces, so a date written by the application in the meantime is kept.
+ * Until a document is rewritten {@link MongoConversionsConfig.StringToInstantConverter}
+ * reads its strings, so old and new documents can be mixed during the rollout.
+ * Strings that cannot be parsed are removed.
+ */
+@Component
+public class TimestampBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(TimestampBackfill.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public TimestampBackfill(
+            MongoTemplate mongoTemplate,
+            @Value("${timestamps.backfill.enabled:true}") boolean enabled,
+            @Value("${timestamps.backfill.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            backfill();
+        } catch (DataAccessException e) {
+            log.warn("Timestamp backfill skipped: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void backfill() {
+        backfill(UserQuiz.class, List.of("completedAt"));
+        backfill(Leaderboard.class, List.of("lastUpdatedAt"));
+        backfill(User.class, List.of("createdAt", "lastActive"));
+    }
+
+    private void backfill(Class<?> type, List<String> fields) {
+        Query query = new Query(new Criteria().orOperator(fields.stream()
+                .map(field -> Criteria.where(field).type(BsonType.STRING.getValue()))
+                .toArray(Criteria[]::new)))
+                .cursorBatchSize(batchSize);
+        fields.forEach(query.fields()::include);
+
+        long converted = 0;
+        long removed = 0;
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+        int pending = 0;
+
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class,
+                mongoTemplate.getCollectionName(type))) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                for (String field : fields) {
+                    if (!(document.get(field) instanceof String value)) {
+                        continue;
+                    }
+                    Instant instant = MongoConversionsConfig.StringToInstantConverter.INSTANCE.convert(value);
+                    Query guard = new Query(Criteria.where("_id").is(document.get("_id")).and(field).is(value));
+                    if (instant != null) {
+                        bulkOperations.updateOne(guard, new Update().set(field, Date.from(instant)));
+                        converted++;
+                    } else {
+                        bulkOperations.updateOne(guard, new Update().unset(field));
+                        removed++;
+                    }
+                    if (++pending == batchSize) {
+                        bulkOperations.execute();
+                        bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+                        pending = 0;
+                    }
+                }
+            }
+        }
+        if (pending > 0) {
+            bulkOperations.execute();
+        }
+        if (converted > 0 || removed > 0) {
+            log.info("Converted {} string timestamps in {} to dates, removed {} unparseable",
+                    converted, mongoTemplate.getCollectionName(type), removed);
+        }
+    }
+}
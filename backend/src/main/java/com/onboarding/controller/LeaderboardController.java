@@ -1,10 +1,18 @@
 package com.onboarding.controller;
 
 import com.onboarding.dto.LeaderboardDTO;
+import com.onboarding.dto.LeaderboardPageDTO;
+import com.onboarding.dto.LeaderboardRankPointDTO;
+import com.onboarding.dto.LeaderboardSnapshotDTO;
 import com.onboarding.service.LeaderboardService;
+import com.onboarding.service.LeaderboardSnapshotService;
+import com.onboarding.service.leaderboard.LeaderboardPartitions;
+import com.onboarding.service.leaderboard.LeaderboardWindow;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -12,19 +20,86 @@ import java.util.List;
 @RequestMapping("/api/leaderboard")
 public class LeaderboardController {
     private final LeaderboardService leaderboardService;
+    private final LeaderboardSnapshotService leaderboardSnapshotService;
 
-    public LeaderboardController(LeaderboardService leaderboardService) {
+    public LeaderboardController(LeaderboardService leaderboardService,
+            LeaderboardSnapshotService leaderboardSnapshotService) {
         this.leaderboardService = leaderboardService;
+        this.leaderboardSnapshotService = leaderboardSnapshotService;
     }
 
     @GetMapping
-    public ResponseEntity<List<LeaderboardDTO>> getAllLeaderboards() {
-        return ResponseEntity.ok(leaderboardService.getAllLeaderboards());
+    public ResponseEntity<List<LeaderboardDTO>> getAllLeaderboards(
+            @RequestParam(required = false) String window) {
+        try {
+            LeaderboardWindow leaderboardWindow = LeaderboardWindow.fromParam(window);
+            return ResponseEntity.ok(leaderboardWindow != null
+                    ? leaderboardService.getWindowedLeaderboards(leaderboardWindow, Integer.MAX_VALUE)
+                    : leaderboardService.getAllLeaderboards());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<LeaderboardPageDTO> getLeaderboardPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(leaderboardService.getLeaderboardPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/top")
-    public ResponseEntity<List<LeaderboardDTO>> getTopLeaderboards() {
-        return ResponseEntity.ok(leaderboardService.getTopLeaderboards());
+    public ResponseEntity<List<LeaderboardDTO>> getTopLeaderboards(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String window) {
+        try {
+            LeaderboardWindow leaderboardWindow = LeaderboardWindow.fromParam(window);
+            return ResponseEntity.ok(leaderboardWindow != null
+                    ? leaderboardService.getWindowedLeaderboards(leaderboardWindow, limit)
+                    : leaderboardService.getTopLeaderboards(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/partitions/skill/{skill}/top")
+    public ResponseEntity<List<LeaderboardDTO>> getTopBySkill(
+            @PathVariable String skill,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(
+                leaderboardService.getPartitionLeaderboard(LeaderboardPartitions.Kind.SKILL, skill, limit));
+    }
+
+    @GetMapping("/partitions/type/{type}/top")
+    public ResponseEntity<List<LeaderboardDTO>> getTopByModuleType(
+            @PathVariable String type,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(
+                leaderboardService.getPartitionLeaderboard(LeaderboardPartitions.Kind.TYPE, type, limit));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLeaderboard() {
+        return leaderboardService.streamLeaderboard();
+    }
+
+    @GetMapping("/snapshots")
+    public ResponseEntity<List<LeaderboardSnapshotDTO>> getSnapshots() {
+        return ResponseEntity.ok(leaderboardSnapshotService.getSnapshots());
+    }
+
+    @GetMapping("/snapshots/{sequence}")
+    public ResponseEntity<List<LeaderboardDTO>> getLeaderboardAt(@PathVariable long sequence) {
+        return ResponseEntity.ok(leaderboardSnapshotService.getLeaderboardAt(sequence));
+    }
+
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<List<LeaderboardRankPointDTO>> getRankHistory(@PathVariable String userId) {
+        return ResponseEntity.ok(leaderboardSnapshotService.getRankHistory(userId));
     }
 
     @GetMapping("/user/{userId}")
@@ -32,6 +107,13 @@ public class LeaderboardController {
         return ResponseEntity.ok(leaderboardService.getLeaderboardByUserId(userId));
     }
 
+    @GetMapping("/user/{userId}/around")
+    public ResponseEntity<List<LeaderboardDTO>> getLeaderboardsAroundUser(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "5") int range) {
+        return ResponseEntity.ok(leaderboardService.getLeaderboardsAroundUser(userId, range));
+    }
+
     @PostMapping
     public ResponseEntity<LeaderboardDTO> createOrUpdateLeaderboard(
             @Valid @RequestBody LeaderboardDTO leaderboardDTO) {
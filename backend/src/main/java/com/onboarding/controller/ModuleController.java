@@ -4,10 +4,13 @@ import com.onboarding.dto.ModuleDTO;
 import com.onboarding.service.ModuleService;
 import com.onboarding.service.UserService;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/modules")
@@ -21,8 +24,8 @@ public class ModuleController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ModuleDTO>> getAllModules() {
-        return ResponseEntity.ok(moduleService.getAllModules());
+    public ResponseEntity<List<ModuleDTO>> getAllModules(WebRequest request) {
+        return catalogResponse(request, moduleService::getAllModules);
     }
 
     @GetMapping("/{id}")
@@ -33,13 +36,14 @@ public class ModuleController {
     }
 
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<ModuleDTO>> getModulesByType(@PathVariable String type) {
-        return ResponseEntity.ok(moduleService.getModulesByType(type));
+    public ResponseEntity<List<ModuleDTO>> getModulesByType(@PathVariable String type, WebRequest request) {
+        return catalogResponse(request, () -> moduleService.getModulesByType(type));
     }
 
     @GetMapping("/skills")
-    public ResponseEntity<List<ModuleDTO>> getModulesBySkills(@RequestParam List<String> skills) {
-        return ResponseEntity.ok(moduleService.getModulesBySkills(skills));
+    public ResponseEntity<List<ModuleDTO>> getModulesBySkills(@RequestParam List<String> skills,
+            WebRequest request) {
+        return catalogResponse(request, () -> moduleService.getModulesBySkills(skills));
     }
 
     @PostMapping
@@ -73,4 +77,17 @@ public class ModuleController {
         moduleService.deleteModule(id);
         return ResponseEntity.ok().build();
     }
-}
\ No newline at end of file
+
+    // Catalog responses carry the catalog version as a strong ETag. A request
+    // whose If-None-Match still matches gets a 304 without loading the catalog.
+    private ResponseEntity<List<ModuleDTO>> catalogResponse(WebRequest request, Supplier<List<ModuleDTO>> catalog) {
+        String etag = "\"" + moduleService.getCatalogVersion() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(catalog.get());
+    }
+}
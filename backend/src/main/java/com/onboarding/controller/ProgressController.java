@@ -1,11 +1,15 @@
 package com.onboarding.controller;
 
 import com.onboarding.dto.ProgressDTO;
+import com.onboarding.dto.SubModuleCompletionDTO;
+import com.onboarding.dto.SubModuleCompletionResultDTO;
 import com.onboarding.service.ProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/progress")
 public class ProgressController {
@@ -39,4 +43,14 @@ public class ProgressController {
         progressService.completeSubModule(userId, moduleId, subModuleId);
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("/complete/batch")
+    public ResponseEntity<List<SubModuleCompletionResultDTO>> completeSubModules(
+            @RequestBody List<SubModuleCompletionDTO> completions) {
+        try {
+            return ResponseEntity.ok(progressService.completeSubModules(completions));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
\ No newline at end of file
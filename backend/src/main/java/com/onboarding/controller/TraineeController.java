@@ -35,8 +35,11 @@ public class TraineeController {
     }
 
     @GetMapping("/leaderboard")
-    public ResponseEntity<List<LeaderboardEntryDto>> getLeaderboardData() {
-        List<LeaderboardEntryDto> leaderboard = traineeService.getLeaderboardData();
+    public ResponseEntity<List<LeaderboardEntryDto>> getLeaderboardData(
+            @RequestParam(required = false) Integer limit) {
+        List<LeaderboardEntryDto> leaderboard = limit != null
+                ? traineeService.getLeaderboardData(limit)
+                : traineeService.getLeaderboardData();
         return ResponseEntity.ok(leaderboard);
     }
 
@@ -1,10 +1,15 @@
 package com.onboarding.controller;
 
+import com.onboarding.dto.UserSubModuleProgressDto;
 import com.onboarding.model.UserProgress;
 import com.onboarding.service.UserProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,4 +32,20 @@ public class UserProgressController {
         List<UserProgress> allProgress = userProgressService.getAllUserProgress();
         return ResponseEntity.ok(allProgress);
     }
+
+    // Endpoint for frequent video/content position reports from the player
+    @PostMapping("/heartbeat")
+    public ResponseEntity<Void> recordHeartbeat(@RequestBody UserSubModuleProgressDto progressDto) {
+        try {
+            if (!userProgressService.recordSubModuleHeartbeat(progressDto)) {
+                // Buffer is full, the player reports a newer position later anyway
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build();
+            }
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ public class LeaderboardDTO {
     private int completedModules;
     private int totalModules;
     private String lastUpdatedAt;
+    private int rank;
 
     public LeaderboardDTO() {
     }
@@ -0,0 +1,19 @@
+package com.onboarding.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LeaderboardPageDTO {
+    private List<LeaderboardDTO> entries;
+    private String nextCursor; // null when this is the last page
+
+    public LeaderboardPageDTO() {
+    }
+
+    public LeaderboardPageDTO(List<LeaderboardDTO> entries, String nextCursor) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,21 @@
+package com.onboarding.dto;
+
+import lombok.Data;
+
+@Data
+public class LeaderboardRankPointDTO {
+    private long sequence;
+    private String takenAt;
+    private int rank;
+    private int score;
+
+    public LeaderboardRankPointDTO() {
+    }
+
+    public LeaderboardRankPointDTO(long sequence, String takenAt, int rank, int score) {
+        this.sequence = sequence;
+        this.takenAt = takenAt;
+        this.rank = rank;
+        this.score = score;
+    }
+}
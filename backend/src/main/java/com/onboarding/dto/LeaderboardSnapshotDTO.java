@@ -0,0 +1,19 @@
+package com.onboarding.dto;
+
+import lombok.Data;
+
+@Data
+public class LeaderboardSnapshotDTO {
+    private long sequence;
+    private String takenAt;
+    private int changeCount;
+
+    public LeaderboardSnapshotDTO() {
+    }
+
+    public LeaderboardSnapshotDTO(long sequence, String takenAt, int changeCount) {
+        this.sequence = sequence;
+        this.takenAt = takenAt;
+        this.changeCount = changeCount;
+    }
+}
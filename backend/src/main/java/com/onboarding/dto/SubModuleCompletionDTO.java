@@ -0,0 +1,19 @@
+package com.onboarding.dto;
+
+import lombok.Data;
+
+@Data
+public class SubModuleCompletionDTO {
+    private String userId;
+    private String moduleId;
+    private String subModuleId;
+
+    public SubModuleCompletionDTO() {
+    }
+
+    public SubModuleCompletionDTO(String userId, String moduleId, String subModuleId) {
+        this.userId = userId;
+        this.moduleId = moduleId;
+        this.subModuleId = subModuleId;
+    }
+}
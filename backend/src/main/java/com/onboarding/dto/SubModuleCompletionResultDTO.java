@@ -0,0 +1,30 @@
+package com.onboarding.dto;
+
+import lombok.Data;
+
+@Data
+public class SubModuleCompletionResultDTO {
+    public static final String COMPLETED = "COMPLETED";
+    public static final String ALREADY_COMPLETED = "ALREADY_COMPLETED";
+    public static final String REJECTED = "REJECTED";
+
+    private String userId;
+    private String moduleId;
+    private String subModuleId;
+    private String status; // COMPLETED, ALREADY_COMPLETED or REJECTED
+    private String message; // Reason for a rejection
+
+    public SubModuleCompletionResultDTO() {
+    }
+
+    public SubModuleCompletionResultDTO(String userId, String moduleId, String subModuleId) {
+        this.userId = userId;
+        this.moduleId = moduleId;
+        this.subModuleId = subModuleId;
+    }
+
+    public void reject(String message) {
+        this.status = REJECTED;
+        this.message = message;
+    }
+}
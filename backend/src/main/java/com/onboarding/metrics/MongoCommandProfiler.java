@@ -0,0 +1,191 @@
+package com.onboarding.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Profiles every Mongo command by collection and by the code that issued it:
+ * the repository method recorded by {@link RepositoryMethodTracker}, or else
+ * the first application frame on the stack (a service calling MongoTemplate).
+ * <p>
+ * Each command records its latency, the documents it returned and the size of
+ * its reply, and commands slower than {@code mongo.profiler.slow-query-threshold-ms}
+ * are logged. Totals per origin, collection and command are kept in memory for
+ * the {@code mongoqueries} actuator endpoint.
+ */
+@Component
+public class MongoCommandProfiler implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoCommandProfiler.class);
+    private static final String APPLICATION_PACKAGE = "com.onboarding.";
+    private static final String METRICS_PACKAGE = "com.onboarding.metrics.";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long slowQueryThresholdNanos;
+    private final Map<Integer, CommandKey> inFlight = new ConcurrentHashMap<>();
+    private final Map<CommandKey, CommandStats> stats = new ConcurrentHashMap<>();
+
+    public MongoCommandProfiler(
+            MeterRegistry meterRegistry,
+            @Value("${mongo.profiler.enabled:true}") boolean enabled,
+            @Value("${mongo.profiler.slow-query-threshold-ms:100}") long slowQueryThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMs);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String commandName = event.getCommandName();
+        inFlight.put(event.getRequestId(), new CommandKey(origin(), collection(commandName, event.getCommand()),
+                commandName));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        CommandKey key = inFlight.remove(event.getRequestId());
+        if (key == null) {
+            return;
+        }
+        long nanos = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        int documents = RequestCommandListener.documentsReturned(event.getResponse());
+        long bytes = sizeOf(event.getResponse());
+
+        Timer.builder("onboarding.mongo.command")
+                .tags("origin", key.origin(), "collection", key.collection(), "command", key.command())
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("onboarding.mongo.command.documents")
+                .baseUnit("documents")
+                .tags("origin", key.origin(), "collection", key.collection(), "command", key.command())
+                .register(meterRegistry)
+                .record(documents);
+        DistributionSummary.builder("onboarding.mongo.command.reply")
+                .baseUnit("bytes")
+                .tags("origin", key.origin(), "collection", key.collection(), "command", key.command())
+                .register(meterRegistry)
+                .record(bytes);
+
+        boolean slow = nanos >= slowQueryThresholdNanos;
+        stats.computeIfAbsent(key, k -> new CommandStats()).record(nanos, documents, bytes, slow);
+        if (slow) {
+            log.warn("Slow Mongo command {} on {} from {} took {} ms, returned {} documents ({} bytes)",
+                    key.command(), key.collection(), key.origin(), TimeUnit.NANOSECONDS.toMillis(nanos),
+                    documents, bytes);
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+
+    /**
+     * @return the command groups with the most total time, slowest first
+     */
+    public List<CommandSummary> topOffenders(int limit) {
+        return stats.entrySet().stream()
+                .map(entry -> entry.getValue().summarize(entry.getKey()))
+                .sorted(Comparator.comparingDouble(CommandSummary::totalMs).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private static String origin() {
+        String repositoryMethod = RepositoryMethodTracker.currentMethod();
+        if (repositoryMethod != null) {
+            return repositoryMethod;
+        }
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(METRICS_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+
+    private static String simpleName(String className) {
+        String simple = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simple.indexOf('$');
+        return nested > 0 ? simple.substring(0, nested) : simple;
+    }
+
+    private static String collection(String commandName, BsonDocument command) {
+        // getMore names the collection separately, its first value is the cursor id
+        BsonValue value = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return value != null && value.isString() ? value.asString().getValue() : "none";
+    }
+
+    private static long sizeOf(BsonDocument document) {
+        if (document instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        return new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().remaining();
+    }
+
+    private record CommandKey(String origin, String collection, String command) {
+    }
+
+    private static final class CommandStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder documents = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        void record(long nanos, int documentCount, long byteCount, boolean slow) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            documents.add(documentCount);
+            bytes.add(byteCount);
+            if (slow) {
+                slowCount.increment();
+            }
+        }
+
+        CommandSummary summarize(CommandKey key) {
+            long calls = count.sum();
+            double totalMs = totalNanos.sum() / 1_000_000.0;
+            return new CommandSummary(key.origin(), key.collection(), key.command(), calls, slowCount.sum(),
+                    totalMs, calls > 0 ? totalMs / calls : 0, maxNanos.get() / 1_000_000.0,
+                    documents.sum(), bytes.sum());
+        }
+    }
+
+    public record CommandSummary(String origin, String collection, String command, long count, long slowCount,
+            double totalMs, double meanMs, double maxMs, long documents, long bytes) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.onboarding.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/mongoqueries}: the Mongo commands that took the most time
+ * since startup or the last reset, grouped by origin, collection and command.
+ */
+@Component
+@Endpoint(id = "mongoqueries")
+public class MongoQueriesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final MongoCommandProfiler profiler;
+
+    public MongoQueriesEndpoint(MongoCommandProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @ReadOperation
+    public List<MongoCommandProfiler.CommandSummary> topOffenders(@Nullable Integer limit) {
+        return profiler.topOffenders(limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        profiler.reset();
+    }
+}
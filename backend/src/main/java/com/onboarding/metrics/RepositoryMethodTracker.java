@@ -0,0 +1,50 @@
+package com.onboarding.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers which repository method the current thread is executing, for
+ * example {@code UserProgressRepository.findByUserId}, so the Mongo commands it
+ * issues can be attributed to it. An interceptor is added to every repository
+ * proxy before the repository factory creates it.
+ */
+@Component
+public class RepositoryMethodTracker implements BeanPostProcessor {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return the repository method running on this thread, or null outside repositories
+     */
+    public static String currentMethod() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> {
+                        String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+                        proxyFactory.addAdvice(0, (MethodInterceptor) invocation -> {
+                            String previous = CURRENT.get();
+                            // Keep the outermost method when a default method calls another one
+                            if (previous == null) {
+                                CURRENT.set(repository + "." + invocation.getMethod().getName());
+                            }
+                            try {
+                                return invocation.proceed();
+                            } finally {
+                                if (previous == null) {
+                                    CURRENT.remove();
+                                }
+                            }
+                        });
+                    }));
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,37 @@
+package com.onboarding.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+/**
+ * Adds each Mongo command, and the documents it returned, to the current
+ * {@link RequestMetrics} tally. The synchronous driver notifies listeners on
+ * the thread that issued the command.
+ */
+public class RequestCommandListener implements CommandListener {
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        RequestMetrics.recordCommand(documentsReturned(event.getResponse()));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        RequestMetrics.recordCommand(0);
+    }
+
+    static int documentsReturned(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonDocument batch = cursor.asDocument();
+            BsonValue documents = batch.containsKey("firstBatch") ? batch.get("firstBatch") : batch.get("nextBatch");
+            return documents != null && documents.isArray() ? documents.asArray().size() : 0;
+        }
+        // findAndModify
+        BsonValue value = response.get("value");
+        return value != null && value.isDocument() ? 1 : 0;
+    }
+}
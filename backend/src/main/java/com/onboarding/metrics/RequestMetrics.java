@@ -0,0 +1,60 @@
+package com.onboarding.metrics;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tallies the work done while serving the current HTTP request. The tally is
+ * opened and published by {@link RequestMetricsFilter}; work done outside a
+ * request, such as scheduled jobs and the badge workers, is not counted.
+ */
+public final class RequestMetrics {
+
+    public static final String COMMANDS_HEADER = "X-Mongo-Commands";
+    public static final String DOCUMENTS_HEADER = "X-Mongo-Documents";
+
+    private static final ThreadLocal<Tally> CURRENT = new ThreadLocal<>();
+
+    private RequestMetrics() {
+    }
+
+    public static void recordCommand(int documentsRead) {
+        Tally tally = CURRENT.get();
+        if (tally != null) {
+            tally.commands++;
+            tally.documentsRead += documentsRead;
+        }
+    }
+
+    public static void recordDtosBuilt(int dtos) {
+        Tally tally = CURRENT.get();
+        if (tally != null) {
+            tally.dtosBuilt += dtos;
+        }
+    }
+
+    static Tally begin() {
+        Tally tally = new Tally();
+        CURRENT.set(tally);
+        return tally;
+    }
+
+    static Tally current() {
+        return CURRENT.get();
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static final class Tally {
+        long commands;
+        long documentsRead;
+        long dtosBuilt;
+
+        // Only takes effect until the response is committed
+        void writeHeaders(HttpServletResponse response) {
+            response.setHeader(COMMANDS_HEADER, Long.toString(commands));
+            response.setHeader(DOCUMENTS_HEADER, Long.toString(documentsRead));
+        }
+    }
+}
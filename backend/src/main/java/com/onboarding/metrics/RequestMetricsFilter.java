@@ -0,0 +1,72 @@
+package com.onboarding.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Publishes the Mongo commands, documents read and DTOs returned by each
+ * request as distribution summaries tagged like {@code http.server.requests}.
+ * <p>
+ * With {@code metrics.request.debug-headers} (set by the {@code debug} profile)
+ * the command and document counts are also returned as
+ * {@value RequestMetrics#COMMANDS_HEADER} and {@value RequestMetrics#DOCUMENTS_HEADER}
+ * headers. Responses with a body get them from {@link RequestMetricsResponseAdvice}
+ * just before the body is written, others here once the handler is done.
+ */
+@Component
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean debugHeaders;
+
+    public RequestMetricsFilter(
+            MeterRegistry meterRegistry,
+            @Value("${metrics.request.debug-headers:false}") boolean debugHeaders) {
+        this.meterRegistry = meterRegistry;
+        this.debugHeaders = debugHeaders;
+    }
+
+    boolean isDebugHeaders() {
+        return debugHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestMetrics.Tally tally = RequestMetrics.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestMetrics.end();
+            if (debugHeaders && !response.isCommitted()) {
+                tally.writeHeaders(response);
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            summary("onboarding.request.mongo.commands", "commands", request.getMethod(), uri)
+                    .record(tally.commands);
+            summary("onboarding.request.documents.read", "documents", request.getMethod(), uri)
+                    .record(tally.documentsRead);
+            summary("onboarding.request.dtos.built", "dtos", request.getMethod(), uri)
+                    .record(tally.dtosBuilt);
+        }
+    }
+
+    private DistributionSummary summary(String name, String unit, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .baseUnit(unit)
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+}
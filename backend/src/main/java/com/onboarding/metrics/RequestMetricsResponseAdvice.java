@@ -0,0 +1,56 @@
+package com.onboarding.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Collection;
+
+/**
+ * Counts the DTOs each controller response carries for {@link RequestMetrics}
+ * and adds the debug headers before the body commits the response. Only
+ * top-level DTOs are counted, not the ones nested inside them.
+ */
+@ControllerAdvice
+public class RequestMetricsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String DTO_PACKAGE = "com.onboarding.dto.";
+
+    private final RequestMetricsFilter requestMetricsFilter;
+
+    public RequestMetricsResponseAdvice(RequestMetricsFilter requestMetricsFilter) {
+        this.requestMetricsFilter = requestMetricsFilter;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        if (body instanceof Collection<?> collection) {
+            RequestMetrics.recordDtosBuilt(
+                    (int) collection.stream().filter(RequestMetricsResponseAdvice::isDto).count());
+        } else if (isDto(body)) {
+            RequestMetrics.recordDtosBuilt(1);
+        }
+        RequestMetrics.Tally tally = RequestMetrics.current();
+        if (tally != null && requestMetricsFilter.isDebugHeaders()
+                && response instanceof ServletServerHttpResponse servletResponse) {
+            tally.writeHeaders(servletResponse.getServletResponse());
+        }
+        return body;
+    }
+
+    private static boolean isDto(Object value) {
+        return value != null && value.getClass().getName().startsWith(DTO_PACKAGE);
+    }
+}
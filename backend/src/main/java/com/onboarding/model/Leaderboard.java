@@ -2,20 +2,26 @@ package com.onboarding.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Data
 @Document(collection = "leaderboard")
+@CompoundIndex(name = "score_lastUpdated_userId", def = "{'score': -1, 'lastUpdated': -1, 'userId': 1}")
 public class Leaderboard {
     @Id
     private String id;
+    @Indexed(unique = true)
     private String userId;
     private String userName;
     private int score;
     private int completedModules;
     private int totalModules;
-    private String lastUpdatedAt;
+    private Instant lastUpdatedAt;
     private int rank;
     private LocalDateTime lastUpdated;
+    private long revision; // Incremented on every score change, guards the in-memory rank index
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.onboarding.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Score earned by a user during one day, used to roll up time-windowed
+ * leaderboards without rescanning quiz and progress history.
+ */
+@Data
+@Document(collection = "leaderboard_buckets")
+@CompoundIndex(name = "bucketStart_userId", def = "{'bucketStart': 1, 'userId': 1}", unique = true)
+public class LeaderboardBucket {
+    @Id
+    private String id;
+    private String userId;
+    private String userName;
+    @Indexed(name = "bucketStart_ttl", expireAfter = "40d") // Longest window is 30 days
+    private LocalDateTime bucketStart; // Start of the day the score was earned
+    private int score;
+    private int completedModules;
+    private LocalDateTime lastUpdated;
+}
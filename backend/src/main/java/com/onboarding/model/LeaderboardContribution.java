@@ -0,0 +1,24 @@
+package com.onboarding.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Score a user earned on a single module. Summed per skill and module type to
+ * build the partitioned leaderboards.
+ */
+@Data
+@Document(collection = "leaderboard_contributions")
+@CompoundIndex(name = "userId_moduleId", def = "{'userId': 1, 'moduleId': 1}", unique = true)
+public class LeaderboardContribution {
+    @Id
+    private String id;
+    private String userId;
+    private String moduleId;
+    private int score;
+    private LocalDateTime lastUpdated;
+}
@@ -0,0 +1,29 @@
+package com.onboarding.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One point in the leaderboard history, stored as the entries that changed
+ * since the previous snapshot. Keyframes store every entry instead, so the
+ * board at a given sequence is rebuilt by replaying the snapshots from the
+ * latest keyframe up to it.
+ */
+@Data
+@Document(collection = "leaderboard_snapshots")
+public class LeaderboardSnapshot {
+    @Id
+    private String id;
+    @Indexed(unique = true)
+    private long sequence;
+    private LocalDateTime takenAt;
+    private int changeCount;
+    private boolean keyframe; // Changes hold the whole board, not only what changed
+    private List<LeaderboardSnapshotEntry> changes = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+package com.onboarding.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class LeaderboardSnapshotEntry {
+    private String userId;
+    private String userName; // Only set when the user first appears or is renamed
+    private int score;
+    private int completedModules;
+    private int totalModules;
+    private LocalDateTime lastUpdated;
+    private boolean removed;
+}
@@ -2,6 +2,7 @@ package com.onboarding.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 
@@ -16,9 +17,11 @@ public class Module {
     private String description;
     private String duration;
     private String image;
+    @Indexed
     private String type; // "3d", "video", "text"
     private String completionMode; // Added: "MANDATORY", "SELF_LEARNED", "NON_MANDATORY"
     private List<String> prerequisites;
+    @Indexed
     private List<String> skills;
     private String quizId;
 
@@ -27,6 +30,7 @@ public class Module {
     private int completionRate;
     private int order;
     private boolean active = true;
+    @Indexed
     private boolean isMandatory = true; // Keep for potential backward compatibility or derive from completionMode
 
     public Module() {
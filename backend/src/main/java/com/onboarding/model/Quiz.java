@@ -2,6 +2,7 @@ package com.onboarding.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -11,6 +12,7 @@ import java.util.List;
 public class Quiz {
     @Id
     private String id;
+    @Indexed
     private String moduleId;
     private String title;
     private String description;
@@ -6,10 +6,12 @@ import java.util.List;
 import com.onboarding.model.Resource;
 import com.onboarding.model.Module;
 import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document("subModules")
+@CompoundIndex(name = "module_order", def = "{'module.$id': 1, 'order': 1}")
 public class SubModule {
     private String id;
     private String title;
@@ -0,0 +1,19 @@
+package com.onboarding.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of a user in one submodule, embedded in the {@link UserProgress}
+ * entry of its module.
+ */
+@Data
+public class SubModuleProgress {
+    private String subModuleId;
+    private int completionPercentage;
+    private String status; // e.g., Not Started, In Progress, Completed
+    private LocalDateTime lastAccessedAt;
+    private int videoProgress; // Specific progress for video submodules
+    private String contentProgress; // Specific progress for text/other content types
+}
@@ -0,0 +1,38 @@
+package com.onboarding.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-computed progress, quiz and badge totals of one trainee, keyed by user
+ * id, so the stats endpoints read one document instead of every progress
+ * and quiz entry.
+ */
+@Data
+@Document(collection = "trainee_summaries")
+public class TraineeSummary {
+    @Id
+    private String id; // Same as the user id
+    private int completedModules;
+    private int inProgressModules;
+    private int notStartedModules;
+    private int progressEntries;
+    private long completionPercentageTotal; // Sum over all progress entries
+    private int completedQuizzes;
+    private long quizScoreTotal; // Sum over all completed quizzes
+    private LocalDateTime lastActivity;
+    private int badgesEarned;
+    private LocalDateTime lastRebuiltAt;
+    private long revision; // Incremented by every change, guards rebuilds against lost updates
+
+    public int getAverageQuizScore() {
+        return completedQuizzes > 0 ? (int) (quizScoreTotal / completedQuizzes) : 0;
+    }
+
+    public int getAverageCompletionPercentage() {
+        return progressEntries > 0 ? (int) (completionPercentageTotal / progressEntries) : 0;
+    }
+}
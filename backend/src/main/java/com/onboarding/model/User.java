@@ -2,26 +2,32 @@ package com.onboarding.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Data
 @Document(collection = "users")
+@CompoundIndex(name = "role_lastActive", def = "{'role': 1, 'lastActive': -1}")
 public class User {
     @Id
     private String id;
+    @Indexed(unique = true, sparse = true)
     private String username;
     private String password;
     private String firstName;
     private String lastName;
+    @Indexed(unique = true)
     private String email;
     private String avatar;
     private String role; // "TRAINEE" or "TRAINER"
     private boolean enabled = true;
-    private String createdAt;
-    private String lastActive;
+    private Instant createdAt;
+    private Instant lastActive;
     private int badgesEarnedCount = 0;
     private List<String> earnedAchievementIds = new ArrayList<>();
 
@@ -0,0 +1,28 @@
+package com.onboarding.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Running badge counters of a user, keyed by user id. The id lists make each
+ * increment idempotent: a module or quiz is only counted when it is added to
+ * its list.
+ */
+@Data
+@Document(collection = "user_achievement_state")
+public class UserAchievementState {
+    @Id
+    private String id; // Same as the user id
+    private List<String> completedModuleIds = new ArrayList<>();
+    private int mandatoryCompleted;
+    private int selfLearnedCompleted; // Completed non-mandatory modules
+    private List<String> perfectQuizIds = new ArrayList<>();
+    private int perfectQuizzes;
+    private LocalDateTime lastReconciledAt;
+    private long revision; // Incremented on every counter change, guards reconciliation
+}
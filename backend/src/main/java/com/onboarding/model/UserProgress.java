@@ -2,6 +2,7 @@ package com.onboarding.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -10,6 +11,8 @@ import java.util.List;
 
 @Data
 @Document(collection = "user_progress")
+@CompoundIndex(name = "userId_moduleId", def = "{'userId': 1, 'moduleId': 1}", unique = true)
+@CompoundIndex(name = "userId_subModuleId", def = "{'userId': 1, 'subModules.subModuleId': 1}")
 public class UserProgress {
     @Id
     private String id;
@@ -21,6 +24,7 @@ public class UserProgress {
     private LocalDateTime completedAt;
     private List<String> completedSubModuleIds = new ArrayList<>(); // New field to store completed sub-module IDs
     private boolean quizCompleted = false; // New field to track quiz completion
+    private List<SubModuleProgress> subModules = new ArrayList<>(); // Video/content position per sub-module
 
     // Constructors
     public UserProgress() {
@@ -2,19 +2,25 @@ package com.onboarding.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
+
 @Data
 @Document(collection = "user_quizzes")
+@CompoundIndex(name = "userId_quizId", def = "{'userId': 1, 'quizId': 1}", unique = true)
 public class UserQuiz {
     @Id
     private String id;
     private String userId;
     private String quizId;
+    @Indexed
     private boolean completed;
     private int score; // Score out of 100
     private int maxScore = 100; // Maximum possible score
-    private String completedAt; // Timestamp when the quiz was completed
+    private Instant completedAt; // Timestamp when the quiz was completed
     // TODO: Add fields for assessment results (e.g., score, submission date)
 
     // Constructors
@@ -27,7 +33,7 @@ public class UserQuiz {
         this.completed = completed;
     }
 
-    public UserQuiz(String userId, String quizId, boolean completed, int score, String completedAt) {
+    public UserQuiz(String userId, String quizId, boolean completed, int score, Instant completedAt) {
         this.userId = userId;
         this.quizId = quizId;
         this.completed = completed;
@@ -1,7 +1,11 @@
 package com.onboarding.repository;
 
 import com.onboarding.model.Leaderboard;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +15,15 @@ public interface LeaderboardRepository extends MongoRepository<Leaderboard, Stri
     List<Leaderboard> findAllByOrderByScoreDesc();
 
     List<Leaderboard> findTop10ByOrderByScoreDesc();
-}
\ No newline at end of file
+
+    // Keyset pagination, ordered by score desc, lastUpdated desc (nulls last),
+    // userId asc. Backed by the score_lastUpdated_userId index.
+    List<Leaderboard> findAllBy(Pageable pageable);
+
+    @Query("{ $or: [ { score: { $lt: ?0 } }, { score: ?0, lastUpdated: { $lt: ?1 } }, { score: ?0, lastUpdated: null }, "
+            + "{ score: ?0, lastUpdated: ?1, userId: { $gt: ?2 } } ] }")
+    List<Leaderboard> findPageAfter(int score, LocalDateTime lastUpdated, String userId, Pageable pageable);
+
+    @Query("{ $or: [ { score: { $lt: ?0 } }, { score: ?0, lastUpdated: null, userId: { $gt: ?1 } } ] }")
+    List<Leaderboard> findPageAfterInactive(int score, String userId, Pageable pageable);
+}
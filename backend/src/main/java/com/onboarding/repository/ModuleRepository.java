@@ -6,7 +6,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ModuleRepository extends MongoRepository<Module, String> {
+public interface ModuleRepository extends MongoRepository<Module, String>, ModuleRepositoryCustom {
     List<Module> findByType(String type);
 
     List<Module> findBySkillsContaining(String skill);
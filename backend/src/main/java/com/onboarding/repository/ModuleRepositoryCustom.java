@@ -0,0 +1,32 @@
+package com.onboarding.repository;
+
+import com.onboarding.model.Module;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Module reads that leave out submodules or load them from the {@code subModules} references in one query.
+ */
+public interface ModuleRepositoryCustom {
+
+    /**
+     * @return every module, without submodules
+     */
+    List<Module> findAllSummaries();
+
+    /**
+     * @return the module, without submodules
+     */
+    Optional<Module> findSummaryById(String id);
+
+    /**
+     * @return every module with the title, order, type, duration and active flag of its submodules
+     */
+    List<Module> findAllWithSubModuleSummaries();
+
+    /**
+     * @return the module with its full submodules, ordered by submodule order
+     */
+    Optional<Module> findWithSubModulesById(String id);
+}
@@ -0,0 +1,109 @@
+package com.onboarding.repository;
+
+import com.mongodb.DBRef;
+import com.onboarding.model.Module;
+import com.onboarding.model.SubModule;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+class ModuleRepositoryCustomImpl implements ModuleRepositoryCustom {
+
+    private static final String[] SUB_MODULE_SUMMARY_FIELDS = { "title", "order", "type", "duration", "active" };
+
+    private final MongoTemplate mongoTemplate;
+
+    ModuleRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Module> findAllSummaries() {
+        return mongoTemplate.find(summaryQuery(new Query()), Module.class);
+    }
+
+    @Override
+    public Optional<Module> findSummaryById(String id) {
+        return Optional.ofNullable(mongoTemplate.findOne(summaryQuery(new Query(Criteria.where("id").is(id))),
+                Module.class));
+    }
+
+    @Override
+    public List<Module> findAllWithSubModuleSummaries() {
+        return findWithSubModules(new Query(), SUB_MODULE_SUMMARY_FIELDS);
+    }
+
+    @Override
+    public Optional<Module> findWithSubModulesById(String id) {
+        Object documentId = ObjectId.isValid(id) ? new ObjectId(id) : id;
+        return findWithSubModules(new Query(Criteria.where("_id").is(documentId))).stream().findFirst();
+    }
+
+    // Loads the submodules of every module in the result with one $in query, restricted to the given fields if any
+    private List<Module> findWithSubModules(Query query, String... subModuleFields) {
+        // Read as raw documents so the subModules references are not resolved one module at a time
+        List<Document> moduleDocuments = mongoTemplate.find(query, Document.class,
+                mongoTemplate.getCollectionName(Module.class));
+
+        List<List<Object>> subModuleIdsByModule = new ArrayList<>(moduleDocuments.size());
+        Set<Object> subModuleIds = new LinkedHashSet<>();
+        for (Document document : moduleDocuments) {
+            List<Object> ids = null;
+            if (document.remove("subModules") instanceof List<?> references) {
+                ids = references.stream()
+                        .filter(DBRef.class::isInstance)
+                        .map(reference -> ((DBRef) reference).getId())
+                        .toList();
+                subModuleIds.addAll(ids);
+            }
+            subModuleIdsByModule.add(ids);
+        }
+
+        Map<Object, SubModule> subModulesById = new HashMap<>();
+        if (!subModuleIds.isEmpty()) {
+            Query subModuleQuery = new Query(Criteria.where("_id").in(subModuleIds));
+            if (subModuleFields.length > 0) {
+                subModuleQuery.fields().include(subModuleFields);
+            }
+            for (Document document : mongoTemplate.find(subModuleQuery, Document.class,
+                    mongoTemplate.getCollectionName(SubModule.class))) {
+                // The back reference is the module being loaded, so it is not read again
+                document.remove("module");
+                subModulesById.put(document.get("_id"), mongoTemplate.getConverter().read(SubModule.class, document));
+            }
+        }
+
+        List<Module> modules = new ArrayList<>(moduleDocuments.size());
+        for (int i = 0; i < moduleDocuments.size(); i++) {
+            Module module = mongoTemplate.getConverter().read(Module.class, moduleDocuments.get(i));
+            List<Object> ids = subModuleIdsByModule.get(i);
+            if (ids != null) {
+                module.setSubModules(ids.stream()
+                        .map(subModulesById::get)
+                        .filter(Objects::nonNull)
+                        .sorted(Comparator.comparingInt(SubModule::getOrder))
+                        .collect(Collectors.toList()));
+            }
+            modules.add(module);
+        }
+        return modules;
+    }
+
+    private static Query summaryQuery(Query query) {
+        query.fields().exclude("subModules");
+        return query;
+    }
+}
@@ -0,0 +1,32 @@
+package com.onboarding.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Formats timestamps for DTOs the way the API has always returned them: ISO
+ * local date-time in server time, without an offset, e.g.
+ * {@code 2026-10-17T04:35:44}. Stored dates are converted to server time first.
+ */
+public final class ApiTimestamps {
+
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private ApiTimestamps() {
+    }
+
+    public static String format(LocalDateTime time) {
+        return time != null ? time.format(FORMAT) : null;
+    }
+
+    public static String format(Instant time) {
+        return time != null ? format(LocalDateTime.ofInstant(time, ZoneId.systemDefault())) : null;
+    }
+
+    public static String format(Date time) {
+        return time != null ? format(time.toInstant()) : null;
+    }
+}
@@ -1,6 +1,12 @@
 package com.onboarding.service;
 
 import com.onboarding.dto.LeaderboardDTO;
+import com.onboarding.dto.LeaderboardPageDTO;
+import com.onboarding.model.Module;
+import com.onboarding.model.User;
+import com.onboarding.service.leaderboard.LeaderboardPartitions;
+import com.onboarding.service.leaderboard.LeaderboardWindow;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.List;
 
 /**
@@ -11,9 +17,82 @@ public interface LeaderboardService {
 
     List<LeaderboardDTO> getTopLeaderboards();
 
+    List<LeaderboardDTO> getTopLeaderboards(int limit);
+
+    /**
+     * Get the leaderboard restricted to the score earned inside a time window.
+     *
+     * @param window the rolling window to aggregate
+     * @param limit  the maximum number of entries to return
+     */
+    List<LeaderboardDTO> getWindowedLeaderboards(LeaderboardWindow window, int limit);
+
+    /**
+     * Get the top of the sub-leaderboard for one skill or module type, scored
+     * only from the modules tagged with it.
+     */
+    List<LeaderboardDTO> getPartitionLeaderboard(LeaderboardPartitions.Kind kind, String name, int limit);
+
     LeaderboardDTO getLeaderboardByUserId(String userId);
 
+    /**
+     * Get one page of the leaderboard using keyset pagination.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the
+     *               first page
+     * @param limit  the maximum number of entries to return
+     */
+    LeaderboardPageDTO getLeaderboardPage(String cursor, int limit);
+
+    /**
+     * Get the entries ranked within {@code range} places above and below a user.
+     */
+    List<LeaderboardDTO> getLeaderboardsAroundUser(String userId, int range);
+
+    /**
+     * Subscribe to live leaderboard changes. The stream starts with a
+     * "snapshot" event holding the top entries, followed by coalesced "delta"
+     * events with the changed entries and their new rank.
+     */
+    SseEmitter streamLeaderboard();
+
     LeaderboardDTO createOrUpdateLeaderboard(LeaderboardDTO leaderboardDTO);
 
     void deleteLeaderboard(String id);
+
+    /**
+     * Apply the score change caused by a module progress update to the
+     * materialized leaderboard entry of a trainee.
+     *
+     * @param userId           the ID of the trainee
+     * @param moduleId         the module whose progress changed
+     * @param mandatoryModule  whether the module counts for completion points
+     * @param previousStatus   module status before the update, or null if there
+     *                         was no progress entry yet
+     * @param newStatus        module status after the update
+     * @param quizScore        quiz score earned by this update, 0 if none
+     */
+    void applyProgressChange(String userId, String moduleId, boolean mandatoryModule, String previousStatus,
+            String newStatus, int quizScore);
+
+    /**
+     * Move a module's contributions to the skill and type partitions matching
+     * its current tags.
+     */
+    void updateModulePartitions(Module module);
+
+    /**
+     * Drop a deleted module's contributions from the partitioned leaderboards.
+     */
+    void removeModulePartitions(String moduleId);
+
+    /**
+     * Add a zero-score leaderboard entry for a newly registered trainee.
+     */
+    void registerTrainee(User trainee);
+
+    /**
+     * Recompute every leaderboard entry from user progress and quiz results.
+     */
+    void rebuildLeaderboard();
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.onboarding.service;
+
+import com.onboarding.dto.LeaderboardDTO;
+import com.onboarding.dto.LeaderboardRankPointDTO;
+import com.onboarding.dto.LeaderboardSnapshotDTO;
+
+import java.util.List;
+
+public interface LeaderboardSnapshotService {
+    /**
+     * Record the entries that changed since the previous snapshot.
+     *
+     * @return the new snapshot, or null if nothing changed
+     */
+    LeaderboardSnapshotDTO takeSnapshot();
+
+    List<LeaderboardSnapshotDTO> getSnapshots();
+
+    /**
+     * Rebuild the ranked board as it was when a snapshot was taken.
+     */
+    List<LeaderboardDTO> getLeaderboardAt(long sequence);
+
+    /**
+     * Get the user's rank and score at every snapshot in which they were on
+     * the board.
+     */
+    List<LeaderboardRankPointDTO> getRankHistory(String userId);
+}
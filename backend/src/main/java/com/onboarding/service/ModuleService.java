@@ -9,6 +9,18 @@ import java.util.List;
 public interface ModuleService {
     List<ModuleDTO> getAllModules();
 
+    /**
+     * Version of the module catalog served by {@link #getAllModules()},
+     * {@link #getModulesByType(String)} and {@link #getModulesBySkills(List)}.
+     * It changes whenever a module or quiz is written.
+     */
+    String getCatalogVersion();
+
+    /**
+     * Drop the cached catalog after a write that changes what it lists.
+     */
+    void invalidateCatalog();
+
     ModuleDTO getModuleById(String id, String userId);
 
     List<ModuleDTO> getModulesByType(String type);
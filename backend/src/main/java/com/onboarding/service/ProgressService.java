@@ -1,8 +1,8 @@
 package com.onboarding.service;
 
 import com.onboarding.dto.ProgressDTO;
-import com.onboarding.model.Progress;
-import com.onboarding.repository.ProgressRepository;
+import com.onboarding.dto.SubModuleCompletionDTO;
+import com.onboarding.dto.SubModuleCompletionResultDTO;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -36,6 +36,15 @@ public interface ProgressService {
     // Add a method to handle sub-module completion
     void completeSubModule(String userId, String moduleId, String subModuleId);
 
+    /**
+     * Apply many sub-module completions at once, with one atomic update per
+     * affected progress entry and one badge check per affected trainee.
+     *
+     * @param completions the (user, module, sub-module) completion events
+     * @return one result per event, in the same order
+     */
+    List<SubModuleCompletionResultDTO> completeSubModules(List<SubModuleCompletionDTO> completions);
+
     // Consider methods for updating overall module progress based on sub-modules
     // and quiz
     // This might be handled internally by completeSubModule and submitQuiz in
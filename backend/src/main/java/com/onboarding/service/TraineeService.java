@@ -14,5 +14,11 @@ public interface TraineeService {
 
     List<LeaderboardEntryDto> getLeaderboardData();
 
+    /**
+     * Get the {@code limit} best ranked trainees without building entries for
+     * the rest of the board.
+     */
+    List<LeaderboardEntryDto> getLeaderboardData(int limit);
+
     List<ModuleDTO> getTraineeModules(String userId);
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.onboarding.service;
+
+import com.onboarding.model.TraineeSummary;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Maintains the {@link TraineeSummary} read model. Writers report each change
+ * right after their own write; the summary is updated with a single atomic
+ * increment, and rebuilt from progress and quiz entries when it is missing.
+ */
+public interface TraineeSummaryService {
+
+    /**
+     * @return the summary of a user, built from their entries if missing
+     */
+    TraineeSummary getSummary(String userId);
+
+    /**
+     * @return the summaries of the given users, keyed by user id
+     */
+    Map<String, TraineeSummary> getSummaries(Collection<String> userIds);
+
+    /**
+     * Record a progress entry changing status or completion percentage.
+     *
+     * @param previousStatus null if the entry was created by this change
+     */
+    void applyProgressChange(String userId, String previousStatus, int previousPercentage, String newStatus,
+            int newPercentage, LocalDateTime accessedAt);
+
+    /**
+     * Record activity that did not change any status, such as position updates.
+     *
+     * @param lastAccessByUser latest access time per user id
+     */
+    void applyActivity(Map<String, LocalDateTime> lastAccessByUser);
+
+    /**
+     * Record a newly completed quiz.
+     */
+    void applyQuizCompletion(String userId, int score, LocalDateTime completedAt);
+
+    /**
+     * Record a newly awarded badge.
+     */
+    void applyBadgeAwarded(String userId);
+
+    /**
+     * Rebuild every summary on the next check, e.g. after progress entries were
+     * removed or migrated. Repeated requests are merged into one run.
+     */
+    void requestRebuild();
+}
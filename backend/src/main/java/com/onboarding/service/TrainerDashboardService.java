@@ -2,37 +2,48 @@ package com.onboarding.service;
 
 import com.onboarding.dto.TrainerDashboardStatsDTO;
 import com.onboarding.dto.TraineeDashboardDTO;
+import com.onboarding.model.TraineeSummary;
 import com.onboarding.model.User;
 import com.onboarding.model.UserProgress;
 import com.onboarding.repository.UserRepository;
 import com.onboarding.repository.ModuleRepository;
 import com.onboarding.repository.UserQuizRepository;
 import com.onboarding.repository.UserProgressRepository;
+import com.onboarding.service.cache.ModuleStructureCache;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("onboarding.service")
 public class TrainerDashboardService {
 
     private final UserRepository userRepository;
     private final ModuleRepository moduleRepository;
     private final UserQuizRepository userQuizRepository;
     private final UserProgressRepository userProgressRepository;
+    private final TraineeSummaryService traineeSummaryService;
+    private final ModuleStructureCache moduleStructureCache;
 
     @Autowired
     public TrainerDashboardService(
             UserRepository userRepository,
             ModuleRepository moduleRepository,
             UserQuizRepository userQuizRepository,
-            UserProgressRepository userProgressRepository) {
+            UserProgressRepository userProgressRepository,
+            TraineeSummaryService traineeSummaryService,
+            ModuleStructureCache moduleStructureCache) {
         this.userRepository = userRepository;
         this.moduleRepository = moduleRepository;
         this.userQuizRepository = userQuizRepository;
         this.userProgressRepository = userProgressRepository;
+        this.traineeSummaryService = traineeSummaryService;
+        this.moduleStructureCache = moduleStructureCache;
     }
 
     public TrainerDashboardStatsDTO getTrainerDashboardStats() {
@@ -61,7 +72,13 @@ public class TrainerDashboardService {
         Pageable pageable = PageRequest.of(0, limit);
         List<User> recentTraineeUsers = userRepository.findByRoleOrderByLastActiveDesc("TRAINEE", pageable);
 
-        // For each user, fetch their progress and map to DTO
+        // One read for the summaries of all listed trainees
+        Map<String, TraineeSummary> summaries = traineeSummaryService.getSummaries(
+                recentTraineeUsers.stream().map(User::getId).collect(Collectors.toList()));
+        // The total number of assigned modules isn't tracked per user, so all modules
+        // in the system are used as a placeholder
+        int totalModulesInSystem = moduleStructureCache.getAll().size();
+
         return recentTraineeUsers.stream().map(user -> {
             TraineeDashboardDTO dto = new TraineeDashboardDTO();
             dto.setId(user.getId());
@@ -69,42 +86,13 @@ public class TrainerDashboardService {
                                                                          // last name
             dto.setEmail(user.getEmail());
             dto.setAvatar(user.getAvatar());
-            dto.setLastActive(user.getLastActive());
-
-            // Fetch user progress to get completion details
-            List<UserProgress> userProgressList = userProgressRepository.findByUserId(user.getId());
-            if (!userProgressList.isEmpty()) {
-                // Assuming overall progress for the dashboard is an average or sum,
-                // or you might need a specific 'overall' UserProgress entry.
-                // For now, let's sum up completion percentages and average,
-                // and count completed modules based on UserProgress status.
-
-                double totalProgressPercentage = userProgressList.stream()
-                        .mapToDouble(UserProgress::getCompletionPercentage)
-                        .sum();
-                dto.setProgress(
-                        userProgressList.isEmpty() ? 0 : (int) (totalProgressPercentage / userProgressList.size()));
-
-                long completedModules = userProgressList.stream()
-                        .filter(up -> "COMPLETED".equals(up.getStatus()))
-                        .count();
-                dto.setCompletedModules((int) completedModules);
-
-                // This requires knowing the total number of assigned modules for the user,
-                // which isn't directly available from UserProgress alone.
-                // For now, let's use the total number of modules in the system as a
-                // placeholder.
-                long totalModulesInSystem = moduleRepository.count();
-                dto.setTotalModules((int) totalModulesInSystem);
-
-            } else {
-                // No progress found
-                dto.setProgress(0);
-                dto.setCompletedModules(0);
-                long totalModulesInSystem = moduleRepository.count();
-                dto.setTotalModules((int) totalModulesInSystem);
-            }
+            dto.setLastActive(ApiTimestamps.format(user.getLastActive()));
 
+            // Average completion over the user's progress entries
+            TraineeSummary summary = summaries.get(user.getId());
+            dto.setProgress(summary.getAverageCompletionPercentage());
+            dto.setCompletedModules(summary.getCompletedModules());
+            dto.setTotalModules(totalModulesInSystem);
             return dto;
         }).collect(Collectors.toList());
     }
@@ -58,8 +58,20 @@ public interface UserProgressService {
     UserSubModuleProgressDto saveUserSubModuleProgress(UserSubModuleProgressDto progressDto);
 
     /**
-     * Calculate and save the overall module progress based on the user's submodule
-     * progress within that module.
+     * Record the current video or content position of a user in a submodule.
+     * Positions are buffered and written in batches, so only the latest one per
+     * user and submodule reaches the database.
+     *
+     * @param progressDto The position report, using userId, submoduleId,
+     *                    videoProgress, contentProgress and lastAccessedAt.
+     * @return false if the buffer is full and the position was dropped
+     */
+    boolean recordSubModuleHeartbeat(UserSubModuleProgressDto progressDto);
+
+    /**
+     * Complete the submodules whose saved progress reached 100%, which updates
+     * the overall module progress, leaderboard and badges like any other
+     * completion.
      *
      * @param userId   The ID of the user.
      * @param moduleId The ID of the module.
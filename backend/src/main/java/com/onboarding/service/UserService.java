@@ -2,9 +2,11 @@ package com.onboarding.service;
 
 import com.onboarding.model.User;
 import com.onboarding.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 
 @Service
+@Timed("onboarding.service")
 public class UserService {
     private final UserRepository userRepository;
 
@@ -0,0 +1,245 @@
+package com.onboarding.service.badge;
+
+import com.onboarding.model.UserAchievementState;
+import com.onboarding.model.UserProgress;
+import com.onboarding.model.UserQuiz;
+import com.onboarding.service.cache.ModuleStructure;
+import com.onboarding.service.cache.ModuleStructureCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Recomputes the module completion counters of every user from
+ * {@code user_progress} and the current module flags. Runs when the counters
+ * are first created, after a module changes its mandatory flag or is deleted,
+ * and on a nightly schedule to correct any drift. Users whose badge events were
+ * dropped by the {@link BadgePipeline} are reconciled on their own on the next
+ * check, which also replays their perfect quizzes.
+ * <p>
+ * Badge events update the counters concurrently, so counters are only replaced
+ * if their revision is still the one read before the progress entries. Users
+ * whose counters changed meanwhile are reconciled again on the next check.
+ */
+@Component
+public class AchievementStateReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(AchievementStateReconciler.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ModuleStructureCache moduleStructureCache;
+    private final BadgeEvaluator badgeEvaluator;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private final Set<String> requestedUsers = ConcurrentHashMap.newKeySet();
+
+    public AchievementStateReconciler(MongoTemplate mongoTemplate, ModuleStructureCache moduleStructureCache,
+            BadgeEvaluator badgeEvaluator) {
+        this.mongoTemplate = mongoTemplate;
+        this.moduleStructureCache = moduleStructureCache;
+        this.badgeEvaluator = badgeEvaluator;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeCounters() {
+        try {
+            if (mongoTemplate.estimatedCount(UserAchievementState.class) == 0) {
+                reconcileAll();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Achievement counter initialization skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ask for a reconciliation on the next check, e.g. after module flags
+     * changed. Repeated requests are merged into one run.
+     */
+    public void requestReconciliation() {
+        requested.set(true);
+    }
+
+    /**
+     * Ask for the counters of one user to be recomputed on the next check, e.g.
+     * after one of their badge events was dropped.
+     */
+    public void requestReconciliation(String userId) {
+        requestedUsers.add(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${achievements.reconcile.check-interval-ms:60000}")
+    public void reconcileIfRequested() {
+        if (requested.getAndSet(false)) {
+            // The full run covers every user requested so far
+            requestedUsers.clear();
+            runScheduled();
+        } else if (!requestedUsers.isEmpty()) {
+            List<String> userIds = new ArrayList<>(requestedUsers);
+            requestedUsers.removeAll(userIds);
+            try {
+                reconcileUsers(userIds);
+            } catch (DataAccessException e) {
+                requestedUsers.addAll(userIds);
+                log.warn("Achievement counter reconciliation of {} users failed: {}", userIds.size(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${achievements.reconcile.cron:0 30 3 * * *}")
+    public void reconcileNightly() {
+        runScheduled();
+    }
+
+    private void runScheduled() {
+        try {
+            reconcileAll();
+        } catch (DataAccessException e) {
+            requested.set(true);
+            log.warn("Achievement counter reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void reconcileAll() {
+        reconcile(null);
+    }
+
+    /**
+     * Recompute the counters of some users and replay their perfect quizzes,
+     * which are only counted by their badge events.
+     */
+    public synchronized void reconcileUsers(Collection<String> userIds) {
+        reconcile(userIds);
+
+        Query perfectQuizzes = new Query(Criteria.where("userId").in(userIds)
+                .and("completed").is(true)
+                .and("score").gte(100));
+        perfectQuizzes.fields().include("userId", "quizId");
+        for (UserQuiz quiz : mongoTemplate.find(perfectQuizzes, UserQuiz.class)) {
+            badgeEvaluator.evaluatePerfectQuiz(quiz.getUserId(), quiz.getQuizId());
+        }
+    }
+
+    // Recomputes the counters of the given users, or of every user if null
+    private void reconcile(Collection<String> userIds) {
+        Map<String, ModuleStructure> modules = moduleStructureCache.getAll().stream()
+                .collect(Collectors.toMap(ModuleStructure::getId, Function.identity()));
+        // Dates are stored with millisecond precision, truncate so the stored value compares equal
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+        // Stored counters and their revisions, read before the entries they are recomputed from
+        Query stateQuery = userIds != null ? new Query(Criteria.where("id").in(userIds)) : new Query();
+        stateQuery.fields().include("id", "revision", "mandatoryCompleted", "selfLearnedCompleted");
+        Map<String, UserAchievementState> stored = new HashMap<>();
+        try (Stream<UserAchievementState> states = mongoTemplate.stream(stateQuery, UserAchievementState.class)) {
+            states.forEach(state -> stored.put(state.getId(), state));
+        }
+
+        // Completed modules per user, streamed to avoid loading whole progress documents
+        Map<String, Set<String>> completedByUser = new HashMap<>();
+        Criteria completed = Criteria.where("status").is("COMPLETED");
+        if (userIds != null) {
+            completed.and("userId").in(userIds);
+        }
+        Query progressQuery = new Query(completed);
+        progressQuery.fields().include("userId", "moduleId");
+        try (Stream<UserProgress> progress = mongoTemplate.stream(progressQuery, UserProgress.class)) {
+            progress.filter(entry -> modules.containsKey(entry.getModuleId()))
+                    .forEach(entry -> completedByUser
+                            .computeIfAbsent(entry.getUserId(), id -> new HashSet<>())
+                            .add(entry.getModuleId()));
+        }
+
+        List<UserAchievementState> states = new ArrayList<>(completedByUser.size());
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                UserAchievementState.class);
+        for (Map.Entry<String, Set<String>> entry : completedByUser.entrySet()) {
+            UserAchievementState state = new UserAchievementState();
+            state.setId(entry.getKey());
+            state.setCompletedModuleIds(new ArrayList<>(entry.getValue()));
+            state.setMandatoryCompleted((int) entry.getValue().stream()
+                    .filter(moduleId -> modules.get(moduleId).isMandatory())
+                    .count());
+            state.setSelfLearnedCompleted(entry.getValue().size() - state.getMandatoryCompleted());
+            states.add(state);
+            store(bulkOperations, state, stored.get(entry.getKey()), now);
+        }
+        List<String> written = new ArrayList<>(completedByUser.keySet());
+        for (UserAchievementState previous : stored.values()) {
+            // Users whose completed modules were all deleted
+            if (!completedByUser.containsKey(previous.getId())
+                    && previous.getMandatoryCompleted() + previous.getSelfLearnedCompleted() > 0) {
+                UserAchievementState state = new UserAchievementState();
+                state.setId(previous.getId());
+                store(bulkOperations, state, previous, now);
+                written.add(previous.getId());
+            }
+        }
+        if (written.isEmpty()) {
+            return;
+        }
+        bulkOperations.execute();
+
+        // Counters that changed while the entries were read were not replaced
+        Query skipped = new Query(Criteria.where("id").in(written).and("lastReconciledAt").ne(now));
+        skipped.fields().include("id");
+        mongoTemplate.find(skipped, UserAchievementState.class)
+                .forEach(state -> requestReconciliation(state.getId()));
+
+        // Flag changes can make users eligible for a badge
+        states.forEach(badgeEvaluator::evaluateCompletionBadges);
+        log.debug("Reconciled achievement counters for {} users", states.size());
+    }
+
+    /**
+     * Replaces the counters of a user unless their revision changed since it was
+     * read, and inserts counters that did not exist unless they were created
+     * meanwhile. Either way lastReconciledAt is only set if the write happened.
+     */
+    private static void store(BulkOperations bulkOperations, UserAchievementState state,
+            UserAchievementState previous, LocalDateTime now) {
+        Query query = new Query(Criteria.where("id").is(state.getId()));
+        if (previous != null) {
+            long revision = previous.getRevision();
+            // Counters written before revisions existed read as revision 0
+            query.addCriteria(revision == 0 ? Criteria.where("revision").in(0, null)
+                    : Criteria.where("revision").is(revision));
+            bulkOperations.updateOne(query, new Update()
+                    .set("completedModuleIds", state.getCompletedModuleIds())
+                    .set("mandatoryCompleted", state.getMandatoryCompleted())
+                    .set("selfLearnedCompleted", state.getSelfLearnedCompleted())
+                    .set("lastReconciledAt", now)
+                    .inc("revision", 1));
+        } else {
+            bulkOperations.upsert(query, new Update()
+                    .setOnInsert("completedModuleIds", state.getCompletedModuleIds())
+                    .setOnInsert("mandatoryCompleted", state.getMandatoryCompleted())
+                    .setOnInsert("selfLearnedCompleted", state.getSelfLearnedCompleted())
+                    .setOnInsert("lastReconciledAt", now)
+                    .setOnInsert("revision", 0L));
+        }
+    }
+}
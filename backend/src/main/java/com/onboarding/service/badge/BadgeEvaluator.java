@@ -0,0 +1,131 @@
+package com.onboarding.service.badge;
+
+import com.onboarding.model.User;
+import com.onboarding.model.UserAchievementState;
+import com.onboarding.service.TraineeSummaryService;
+import com.onboarding.service.cache.ModuleStructure;
+import com.onboarding.service.cache.ModuleStructureCache;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Decides which badges a trainee has earned and awards them.
+ * <p>
+ * Each completion or perfect quiz increments a counter in the user's
+ * {@link UserAchievementState}, and the badge rules compare those counters with
+ * thresholds instead of re-reading every module and progress entry. Awards are
+ * single conditional updates, so a badge is never granted or counted twice.
+ */
+@Component
+public class BadgeEvaluator {
+
+    public static final String MANDATORY_COMPLETION_BADGE = "mandatory-completion";
+    public static final String SELF_LEARNED_COMPLETION_BADGE = "self-learned-completion";
+    public static final String PERFECT_QUIZ_SCORE_BADGE = "perfect-quiz-score";
+
+    // Non-mandatory modules needed for the self-learned badge
+    private static final int SELF_LEARNED_THRESHOLD = 3;
+
+    private final ModuleStructureCache moduleStructureCache;
+    private final MongoTemplate mongoTemplate;
+    private final TraineeSummaryService traineeSummaryService;
+
+    public BadgeEvaluator(ModuleStructureCache moduleStructureCache, MongoTemplate mongoTemplate,
+            TraineeSummaryService traineeSummaryService) {
+        this.moduleStructureCache = moduleStructureCache;
+        this.mongoTemplate = mongoTemplate;
+        this.traineeSummaryService = traineeSummaryService;
+    }
+
+    /**
+     * Count newly completed modules and check the module completion badges.
+     */
+    public void evaluateModuleCompletions(String userId, Collection<String> moduleIds) {
+        UserAchievementState state = null;
+        for (String moduleId : moduleIds) {
+            Optional<ModuleStructure> module = moduleStructureCache.get(moduleId);
+            if (module.isPresent()) {
+                UserAchievementState updated = countCompletion(userId, module.get());
+                state = updated != null ? updated : state;
+            }
+        }
+        if (state != null) {
+            evaluateCompletionBadges(state);
+        }
+    }
+
+    /**
+     * Count a quiz passed with every answer correct and award the badge.
+     */
+    public void evaluatePerfectQuiz(String userId, String quizId) {
+        Query query = new Query(Criteria.where("id").is(userId).and("perfectQuizIds").ne(quizId));
+        Update update = new Update()
+                .addToSet("perfectQuizIds", quizId)
+                .inc("perfectQuizzes", 1)
+                .inc("revision", 1);
+        UserAchievementState state = upsertCounters(query, update);
+        if (state != null && state.getPerfectQuizzes() >= 1) {
+            award(userId, PERFECT_QUIZ_SCORE_BADGE);
+        }
+    }
+
+    /**
+     * Award every module completion badge the counters qualify for.
+     */
+    public void evaluateCompletionBadges(UserAchievementState state) {
+        long mandatoryModules = moduleStructureCache.getAll().stream()
+                .filter(ModuleStructure::isMandatory)
+                .count();
+        if (state.getMandatoryCompleted() >= mandatoryModules) {
+            award(state.getId(), MANDATORY_COMPLETION_BADGE);
+        }
+        if (state.getSelfLearnedCompleted() >= SELF_LEARNED_THRESHOLD) {
+            award(state.getId(), SELF_LEARNED_COMPLETION_BADGE);
+        }
+    }
+
+    /**
+     * Award a badge unless the user already has it.
+     *
+     * @return true if the badge was newly awarded
+     */
+    public boolean award(String userId, String badgeId) {
+        Query query = new Query(Criteria.where("id").is(userId).and("earnedAchievementIds").ne(badgeId));
+        Update update = new Update()
+                .addToSet("earnedAchievementIds", badgeId)
+                .inc("badgesEarnedCount", 1);
+        boolean awarded = mongoTemplate.updateFirst(query, update, User.class).getModifiedCount() > 0;
+        if (awarded) {
+            traineeSummaryService.applyBadgeAwarded(userId);
+        }
+        return awarded;
+    }
+
+    // Returns the updated state, or null if the module was already counted
+    private UserAchievementState countCompletion(String userId, ModuleStructure module) {
+        Query query = new Query(Criteria.where("id").is(userId).and("completedModuleIds").ne(module.getId()));
+        Update update = new Update()
+                .addToSet("completedModuleIds", module.getId())
+                .inc(module.isMandatory() ? "mandatoryCompleted" : "selfLearnedCompleted", 1)
+                .inc("revision", 1);
+        return upsertCounters(query, update);
+    }
+
+    private UserAchievementState upsertCounters(Query query, Update update) {
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true).upsert(true), UserAchievementState.class);
+        } catch (DuplicateKeyException e) {
+            // The state exists and already contains the id: nothing to count
+            return null;
+        }
+    }
+}
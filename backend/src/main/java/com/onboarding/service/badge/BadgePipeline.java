@@ -0,0 +1,105 @@
+package com.onboarding.service.badge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs badge evaluation off the request path.
+ * <p>
+ * Events are hashed by user onto {@code badges.pipeline.workers} single-thread
+ * lanes, so the events of one user are processed one at a time and in order
+ * while different users proceed in parallel. Each lane queues at most
+ * {@code badges.pipeline.queue-capacity} events. Publishing never waits: when a
+ * lane is full the event is dropped, counted in {@code badges.pipeline.dropped}
+ * and its user is handed to the {@link AchievementStateReconciler}, which
+ * recomputes their counters and badges on its next check. Workers are platform
+ * threads since the project targets Java 17.
+ */
+@Component
+public class BadgePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(BadgePipeline.class);
+
+    private final BadgeEvaluator badgeEvaluator;
+    private final AchievementStateReconciler achievementStateReconciler;
+    private final ThreadPoolExecutor[] lanes;
+    private final Counter dropped;
+
+    public BadgePipeline(
+            BadgeEvaluator badgeEvaluator,
+            AchievementStateReconciler achievementStateReconciler,
+            MeterRegistry meterRegistry,
+            @Value("${badges.pipeline.workers:4}") int workers,
+            @Value("${badges.pipeline.queue-capacity:1000}") int queueCapacity) {
+        this.badgeEvaluator = badgeEvaluator;
+        this.achievementStateReconciler = achievementStateReconciler;
+        this.dropped = Counter.builder("badges.pipeline.dropped")
+                .description("Badge events dropped because their lane was full")
+                .register(meterRegistry);
+        this.lanes = new ThreadPoolExecutor[workers];
+        for (int i = 0; i < workers; i++) {
+            String threadName = "badge-worker-" + (i + 1);
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /**
+     * Queue the modules a trainee just completed for counting and badge checks.
+     */
+    public void publishModuleCompletions(String userId, Collection<String> moduleIds) {
+        List<String> completed = List.copyOf(moduleIds);
+        submit(userId, () -> badgeEvaluator.evaluateModuleCompletions(userId, completed));
+    }
+
+    /**
+     * Queue a quiz passed with every answer correct.
+     */
+    public void publishPerfectQuizScore(String userId, String quizId) {
+        submit(userId, () -> badgeEvaluator.evaluatePerfectQuiz(userId, quizId));
+    }
+
+    private void submit(String userId, Runnable evaluation) {
+        ThreadPoolExecutor lane = lanes[Math.floorMod(userId.hashCode(), lanes.length)];
+        try {
+            lane.execute(() -> {
+                try {
+                    evaluation.run();
+                } catch (RuntimeException e) {
+                    log.warn("Badge evaluation for user {} failed: {}", userId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Lane full or shutting down: the reconciler recomputes the user's badges instead
+            dropped.increment();
+            achievementStateReconciler.requestReconciliation(userId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.onboarding.service.cache;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The parts of a module that progress and badge calculations depend on,
+ * without its content.
+ */
+@Value
+public class ModuleStructure {
+    String id;
+    String quizId;
+    String completionMode;
+    boolean mandatory;
+    List<String> subModuleIds; // Ordered by submodule order
+
+    public int getSubModuleCount() {
+        return subModuleIds.size();
+    }
+
+    public boolean containsSubModule(String subModuleId) {
+        return subModuleIds.contains(subModuleId);
+    }
+
+    /**
+     * @return true if the module quiz counts as one of the items needed to
+     *         complete the module
+     */
+    public boolean isQuizIncludedInCompletion() {
+        return quizId != null && ("MANDATORY".equals(completionMode) || "SELF_LEARNED".equals(completionMode));
+    }
+}
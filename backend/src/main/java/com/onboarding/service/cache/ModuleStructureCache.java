@@ -0,0 +1,192 @@
+package com.onboarding.service.cache;
+
+import com.onboarding.model.Module;
+import com.onboarding.model.SubModule;
+import com.mongodb.DBRef;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of every module's structure (quiz, completion mode, mandatory
+ * flag and ordered submodule ids). Module structure changes rarely, so it is
+ * loaded once at startup and evicted by the services that write modules or
+ * quizzes instead of being re-read on every progress update.
+ * <p>
+ * Hits, misses, evictions and size are published as the standard
+ * {@code cache.gets}, {@code cache.evictions} and {@code cache.size} meters
+ * tagged {@code cache=moduleStructure}.
+ */
+@Component
+public class ModuleStructureCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ModuleStructureCache.class);
+    private static final String CACHE_NAME = "moduleStructure";
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<String, ModuleStructure> structures = new ConcurrentHashMap<>();
+    // True while every module in the database is present in the map
+    private volatile boolean complete = false;
+    // Incremented by every eviction, so a structure loaded before one is not cached
+    private volatile long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ModuleStructureCache(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .description("Module structure lookups served from memory")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .description("Module structure lookups that had to query MongoDB")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME)
+                .description("Module structures dropped after a module or quiz write")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", structures, Map::size).tag("cache", CACHE_NAME)
+                .description("Number of cached module structures")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        try {
+            loadAll();
+            log.debug("Module structure cache warmed with {} modules", structures.size());
+        } catch (DataAccessException e) {
+            log.warn("Module structure cache warm-up skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the structure of a module, or empty if the module does not exist
+     */
+    public Optional<ModuleStructure> get(String moduleId) {
+        ModuleStructure structure = structures.get(moduleId);
+        if (structure != null) {
+            hits.increment();
+            return Optional.of(structure);
+        }
+        misses.increment();
+        long loadedGeneration = generation;
+        structure = load(moduleId);
+        if (structure != null) {
+            cacheUnlessEvicted(moduleId, structure, loadedGeneration);
+        }
+        return Optional.ofNullable(structure);
+    }
+
+    // Skips structures read before an eviction, they may predate the write that caused it
+    private synchronized void cacheUnlessEvicted(String moduleId, ModuleStructure structure, long loadedGeneration) {
+        if (generation == loadedGeneration) {
+            structures.put(moduleId, structure);
+        }
+    }
+
+    /**
+     * @return the structure of every module
+     */
+    public Collection<ModuleStructure> getAll() {
+        if (complete) {
+            hits.increment();
+        } else {
+            misses.increment();
+            loadAll();
+        }
+        return structures.values();
+    }
+
+    /**
+     * @return the id of the module a submodule belongs to, or empty if the
+     *         submodule is unknown
+     */
+    public Optional<String> findModuleIdOf(String subModuleId) {
+        return getAll().stream()
+                .filter(structure -> structure.containsSubModule(subModuleId))
+                .map(ModuleStructure::getId)
+                .findFirst();
+    }
+
+    /**
+     * Drop a module after it was created, changed or deleted. It is reloaded on
+     * the next lookup.
+     */
+    public synchronized void evict(String moduleId) {
+        if (moduleId == null) {
+            return;
+        }
+        generation++;
+        complete = false;
+        if (structures.remove(moduleId) != null) {
+            evictions.increment();
+        }
+    }
+
+    private synchronized void loadAll() {
+        Query moduleQuery = new Query();
+        moduleQuery.fields().include("quizId", "completionMode", "isMandatory");
+        List<Module> modules = mongoTemplate.find(moduleQuery, Module.class);
+
+        // Read submodules as raw documents so their module reference is not resolved
+        Query subModuleQuery = new Query().with(Sort.by(Sort.Direction.ASC, "order"));
+        subModuleQuery.fields().include("_id", "module");
+        Map<String, List<String>> subModuleIdsByModule = new HashMap<>();
+        for (Document subModule : mongoTemplate.find(subModuleQuery, Document.class, "subModules")) {
+            Object reference = subModule.get("module");
+            if (reference instanceof DBRef dbRef) {
+                subModuleIdsByModule.computeIfAbsent(dbRef.getId().toString(), id -> new ArrayList<>())
+                        .add(subModule.get("_id").toString());
+            }
+        }
+
+        structures.clear();
+        for (Module module : modules) {
+            structures.put(module.getId(),
+                    toStructure(module, subModuleIdsByModule.getOrDefault(module.getId(), List.of())));
+        }
+        complete = true;
+    }
+
+    private ModuleStructure load(String moduleId) {
+        Query moduleQuery = new Query(Criteria.where("id").is(moduleId));
+        moduleQuery.fields().include("quizId", "completionMode", "isMandatory");
+        Module module = mongoTemplate.findOne(moduleQuery, Module.class);
+        if (module == null) {
+            return null;
+        }
+
+        Query subModuleQuery = new Query(Criteria.where("module.$id").is(moduleId))
+                .with(Sort.by(Sort.Direction.ASC, "order"));
+        subModuleQuery.fields().include("id");
+        List<String> subModuleIds = mongoTemplate.find(subModuleQuery, SubModule.class).stream()
+                .map(SubModule::getId)
+                .toList();
+        return toStructure(module, subModuleIds);
+    }
+
+    private static ModuleStructure toStructure(Module module, List<String> subModuleIds) {
+        return new ModuleStructure(module.getId(), module.getQuizId(), module.getCompletionMode(),
+                module.isMandatory(), List.copyOf(subModuleIds));
+    }
+}
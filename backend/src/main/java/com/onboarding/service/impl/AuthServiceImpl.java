@@ -5,19 +5,25 @@ import com.onboarding.dto.SignupRequest;
 import com.onboarding.model.User;
 import com.onboarding.repository.UserRepository;
 import com.onboarding.service.AuthService;
+import com.onboarding.service.LeaderboardService;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.util.Optional;
 
 @Service
+@Timed("onboarding.service")
 public class AuthServiceImpl implements AuthService {
 
     private final UserRepository userRepository;
+    private final LeaderboardService leaderboardService;
 
     @Autowired
-    public AuthServiceImpl(UserRepository userRepository) {
+    public AuthServiceImpl(UserRepository userRepository, LeaderboardService leaderboardService) {
         this.userRepository = userRepository;
+        this.leaderboardService = leaderboardService;
     }
 
     @Override
@@ -33,8 +39,13 @@ public class AuthServiceImpl implements AuthService {
         user.setFirstName(signupRequest.getFirstName());
         user.setLastName(signupRequest.getLastName());
         user.setUsername(signupRequest.getFirstName() + " " + signupRequest.getLastName());
+        Instant now = Instant.now();
+        user.setCreatedAt(now);
+        user.setLastActive(now);
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        leaderboardService.registerTrainee(savedUser);
+        return savedUser;
     }
 
     @Override
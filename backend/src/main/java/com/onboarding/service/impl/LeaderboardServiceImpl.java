@@ -1,7 +1,10 @@
 package com.onboarding.service.impl;
 
 import com.onboarding.dto.LeaderboardDTO;
+import com.onboarding.dto.LeaderboardPageDTO;
 import com.onboarding.model.Leaderboard;
+import com.onboarding.model.LeaderboardBucket;
+import com.onboarding.model.LeaderboardContribution;
 import com.onboarding.model.Module;
 import com.onboarding.model.User;
 import com.onboarding.model.UserQuiz;
@@ -11,22 +14,50 @@ import com.onboarding.repository.ModuleRepository;
 import com.onboarding.repository.UserQuizRepository;
 import com.onboarding.repository.UserProgressRepository;
 import com.onboarding.repository.UserRepository;
+import com.onboarding.service.ApiTimestamps;
 import com.onboarding.service.LeaderboardService;
+import com.onboarding.service.leaderboard.LeaderboardBroadcaster;
+import com.onboarding.service.leaderboard.LeaderboardCursor;
+import com.onboarding.service.leaderboard.LeaderboardPartitions;
+import com.onboarding.service.leaderboard.LeaderboardRankIndex;
+import com.onboarding.service.leaderboard.LeaderboardWindow;
+import io.micrometer.core.annotation.Timed;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("onboarding.service")
 public class LeaderboardServiceImpl implements LeaderboardService {
 
     private final UserRepository userRepository;
@@ -34,6 +65,20 @@ public class LeaderboardServiceImpl implements LeaderboardService {
     private final UserQuizRepository userQuizRepository;
     private final ModuleRepository moduleRepository;
     private final LeaderboardRepository leaderboardRepository;
+    private final MongoTemplate mongoTemplate;
+    private final LeaderboardBroadcaster leaderboardBroadcaster;
+    private final LeaderboardRankIndex rankIndex = new LeaderboardRankIndex();
+    private final LeaderboardPartitions partitions = new LeaderboardPartitions();
+    private volatile boolean rankIndexLoaded = false;
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardServiceImpl.class);
+
+    // Points awarded for each completed mandatory module
+    private static final int MANDATORY_MODULE_POINTS = 10;
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final Sort PAGE_SORT = Sort.by(Sort.Order.desc("score"), Sort.Order.desc("lastUpdated"),
+            Sort.Order.asc("userId"));
 
     @Autowired
     public LeaderboardServiceImpl(
@@ -41,25 +86,248 @@ public class LeaderboardServiceImpl implements LeaderboardService {
             UserProgressRepository userProgressRepository,
             UserQuizRepository userQuizRepository,
             ModuleRepository moduleRepository,
-            LeaderboardRepository leaderboardRepository) {
+            LeaderboardRepository leaderboardRepository,
+            MongoTemplate mongoTemplate,
+            LeaderboardBroadcaster leaderboardBroadcaster) {
         this.userRepository = userRepository;
         this.userProgressRepository = userProgressRepository;
         this.userQuizRepository = userQuizRepository;
         this.moduleRepository = moduleRepository;
         this.leaderboardRepository = leaderboardRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.leaderboardBroadcaster = leaderboardBroadcaster;
     }
 
     @Override
     public List<LeaderboardDTO> getAllLeaderboards() {
+        return toRankedDTOs(rankIndex().top(Integer.MAX_VALUE), 1);
+    }
+
+    @Override
+    public List<LeaderboardDTO> getTopLeaderboards() {
+        return getTopLeaderboards(10);
+    }
+
+    @Override
+    public List<LeaderboardDTO> getTopLeaderboards(int limit) {
+        return toRankedDTOs(rankIndex().top(Math.max(0, limit)), 1);
+    }
+
+    @Override
+    public List<LeaderboardDTO> getWindowedLeaderboards(LeaderboardWindow window, int limit) {
+        if (limit <= 0) {
+            return List.of(); // $limit must be positive
+        }
+        // Only the daily buckets inside the window are read, via the bucketStart index,
+        // oldest first so the name of each user is taken from their latest bucket
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("bucketStart").gte(window.start(LocalDate.now()))),
+                Aggregation.sort(Sort.by(Sort.Direction.ASC, "bucketStart")),
+                Aggregation.group("userId")
+                        .sum("score").as("score")
+                        .sum("completedModules").as("completedModules")
+                        .max("lastUpdated").as("lastUpdated")
+                        .last("userName").as("userName"),
+                Aggregation.sort(Sort.by(Sort.Order.desc("score"), Sort.Order.desc("lastUpdated"),
+                        Sort.Order.asc("_id"))),
+                Aggregation.limit(limit));
+
+        List<Document> rows = mongoTemplate.aggregate(aggregation, LeaderboardBucket.class, Document.class)
+                .getMappedResults();
+        List<LeaderboardDTO> dtos = new ArrayList<>(rows.size());
+        int rank = 1;
+        for (Document row : rows) {
+            String userId = row.getString("_id");
+            Date lastUpdated = row.getDate("lastUpdated");
+            Leaderboard allTime = rankIndex().get(userId);
+            LeaderboardDTO dto = new LeaderboardDTO(
+                    allTime != null ? allTime.getId() : null,
+                    userId,
+                    row.getString("userName"),
+                    row.getInteger("score", 0),
+                    row.getInteger("completedModules", 0),
+                    allTime != null ? allTime.getTotalModules() : 0,
+                    ApiTimestamps.format(lastUpdated));
+            dto.setRank(rank++);
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    @Override
+    public List<LeaderboardDTO> getPartitionLeaderboard(LeaderboardPartitions.Kind kind, String name, int limit) {
+        rankIndex();
+        return toRankedDTOs(partitions.top(kind, name, Math.max(0, limit)), 1);
+    }
+
+    @Override
+    public LeaderboardDTO getLeaderboardByUserId(String userId) {
+        LeaderboardRankIndex index = rankIndex();
+        Leaderboard leaderboard = index.get(userId);
+        if (leaderboard == null) {
+            throw new RuntimeException("Leaderboard entry not found for user: " + userId);
+        }
+        LeaderboardDTO dto = convertToDTO(leaderboard);
+        dto.setRank(index.rankOf(userId));
+        return dto;
+    }
+
+    @Override
+    public LeaderboardPageDTO getLeaderboardPage(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra entry to know whether another page follows
+        Pageable pageable = PageRequest.of(0, pageSize + 1, PAGE_SORT);
+
+        List<Leaderboard> entries;
+        if (cursor == null || cursor.isBlank()) {
+            entries = leaderboardRepository.findAllBy(pageable);
+        } else {
+            LeaderboardCursor after = LeaderboardCursor.decode(cursor);
+            entries = after.getLastUpdated() != null
+                    ? leaderboardRepository.findPageAfter(after.getScore(), after.getLastUpdated(),
+                            after.getUserId(), pageable)
+                    : leaderboardRepository.findPageAfterInactive(after.getScore(), after.getUserId(), pageable);
+        }
+
+        boolean hasMore = entries.size() > pageSize;
+        List<Leaderboard> page = hasMore ? entries.subList(0, pageSize) : entries;
+        int firstRank = page.isEmpty() ? 0 : rankIndex().rankOf(page.get(0).getUserId());
+        String nextCursor = hasMore ? LeaderboardCursor.encode(page.get(page.size() - 1)) : null;
+        return new LeaderboardPageDTO(toRankedDTOs(page, firstRank), nextCursor);
+    }
+
+    @Override
+    public List<LeaderboardDTO> getLeaderboardsAroundUser(String userId, int range) {
+        LeaderboardRankIndex index = rankIndex();
+        List<Leaderboard> neighbours = index.around(userId, Math.max(0, range));
+        if (neighbours.isEmpty()) {
+            throw new RuntimeException("Leaderboard entry not found for user: " + userId);
+        }
+        return toRankedDTOs(neighbours, index.rankOf(neighbours.get(0).getUserId()));
+    }
+
+    @Override
+    public void applyProgressChange(String userId, String moduleId, boolean mandatoryModule, String previousStatus,
+            String newStatus, int quizScore) {
+        int completedDelta = ("COMPLETED".equals(newStatus) ? 1 : 0)
+                - ("COMPLETED".equals(previousStatus) ? 1 : 0);
+        int scoreDelta = quizScore + (mandatoryModule ? completedDelta * MANDATORY_MODULE_POINTS : 0);
+        int totalModulesDelta = previousStatus == null ? 1 : 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("userId").is(userId));
+        Update update = new Update()
+                .inc("score", scoreDelta)
+                .inc("completedModules", completedDelta)
+                .inc("totalModules", totalModulesDelta)
+                .inc("revision", 1)
+                .max("lastUpdated", now)
+                .set("lastUpdatedAt", now.atZone(ZoneId.systemDefault()).toInstant());
+        FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true);
+
+        Leaderboard updated = mongoTemplate.findAndModify(query, update, options, Leaderboard.class);
+        if (updated == null) {
+            // Trainee is not on the board yet (e.g. signed up before the board was
+            // materialized), create the entry on first activity
+            updated = userRepository.findById(userId)
+                    .filter(user -> "TRAINEE".equals(user.getRole()))
+                    .map(user -> mongoTemplate.findAndModify(query,
+                            update.setOnInsert("userName", user.getUsername()), options.upsert(true),
+                            Leaderboard.class))
+                    .orElse(null);
+        }
+        if (updated != null) {
+            indexAndPublish(updated);
+            if (scoreDelta != 0 || completedDelta != 0) {
+                recordInBucket(updated, scoreDelta, completedDelta, now);
+            }
+            if (scoreDelta != 0) {
+                recordContribution(updated, moduleId, scoreDelta, now);
+            }
+        }
+    }
+
+    // Adds the change to the user's per-module score feeding the skill and type partitions
+    private void recordContribution(Leaderboard leaderboard, String moduleId, int scoreDelta, LocalDateTime now) {
+        Query query = new Query(Criteria.where("userId").is(leaderboard.getUserId()).and("moduleId").is(moduleId));
+        Update update = new Update()
+                .inc("score", scoreDelta)
+                .max("lastUpdated", now);
+        mongoTemplate.upsert(query, update, LeaderboardContribution.class);
+        partitions.record(leaderboard.getUserId(), leaderboard.getUserName(), moduleId, scoreDelta, now);
+    }
+
+    @Override
+    public void updateModulePartitions(Module module) {
+        partitions.setModuleTags(module.getId(), module.getType(), module.getSkills());
+    }
+
+    @Override
+    public void removeModulePartitions(String moduleId) {
+        partitions.removeModule(moduleId);
+    }
+
+    // Adds the change to the user's counter for the current day
+    private void recordInBucket(Leaderboard leaderboard, int scoreDelta, int completedDelta, LocalDateTime now) {
+        Query query = new Query(Criteria.where("bucketStart").is(now.toLocalDate().atStartOfDay())
+                .and("userId").is(leaderboard.getUserId()));
+        Update update = new Update()
+                .inc("score", scoreDelta)
+                .inc("completedModules", completedDelta)
+                .max("lastUpdated", now)
+                .set("userName", leaderboard.getUserName());
+        mongoTemplate.upsert(query, update, LeaderboardBucket.class);
+    }
+
+    @Override
+    public void registerTrainee(User trainee) {
+        if (!"TRAINEE".equals(trainee.getRole()) || leaderboardRepository.findByUserId(trainee.getId()).isPresent()) {
+            return;
+        }
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.setUserId(trainee.getId());
+        leaderboard.setUserName(trainee.getUsername());
+        indexAndPublish(leaderboardRepository.save(leaderboard));
+    }
+
+    @Override
+    public SseEmitter streamLeaderboard() {
+        return leaderboardBroadcaster.subscribe(getTopLeaderboards());
+    }
+
+    /**
+     * Materialize the leaderboard on first startup so reads never have to fall
+     * back to a full recompute, then load the rank index from it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeLeaderboard() {
+        try {
+            if (leaderboardRepository.count() == 0) {
+                rebuildLeaderboard();
+            } else {
+                loadRankIndex();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Leaderboard initialization skipped: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void rebuildLeaderboard() {
         List<User> trainees = userRepository.findByRole("TRAINEE");
-        List<Module> allModules = moduleRepository.findAll();
+        List<Module> allModules = moduleRepository.findAllSummaries();
         List<UserProgress> allProgress = userProgressRepository.findAll();
         List<UserQuiz> allUserQuizzes = userQuizRepository.findAll();
 
         Map<String, Module> moduleMap = allModules.stream()
                 .collect(Collectors.toMap(Module::getId, module -> module));
 
+        Map<String, String> moduleIdByQuizId = allModules.stream()
+                .filter(module -> module.getQuizId() != null)
+                .collect(Collectors.toMap(Module::getQuizId, Module::getId, (first, second) -> first));
+
         Map<String, TraineeScoreData> traineeScoreMap = new HashMap<>();
+        Map<String, LeaderboardContribution> contributions = new HashMap<>();
 
         // Initialize trainee score data
         for (User trainee : trainees) {
@@ -75,8 +343,10 @@ public class LeaderboardServiceImpl implements LeaderboardService {
                     data.totalModules++;
                     if ("COMPLETED".equals(progress.getStatus())) {
                         data.completedModules++;
-                        if (module.isMandatory()) { // Assuming Module has isMandatory field
-                            data.score += 10; // Award points for completed mandatory module
+                        if (module.isMandatory()) {
+                            data.score += MANDATORY_MODULE_POINTS; // Award points for completed mandatory module
+                            addContribution(contributions, data.userId, module.getId(), MANDATORY_MODULE_POINTS,
+                                    progress.getLastAccessedAt());
                         }
                     }
                     // Update last activity
@@ -91,60 +361,96 @@ public class LeaderboardServiceImpl implements LeaderboardService {
         // Calculate scores from quizzes
         for (UserQuiz userQuiz : allUserQuizzes) {
             TraineeScoreData data = traineeScoreMap.get(userQuiz.getUserId());
-            if (data != null && userQuiz.isCompleted()) { // Check if quiz is completed
+            if (data != null && userQuiz.isCompleted()) {
                 data.score += userQuiz.getScore(); // Add quiz score directly
-                // Update last activity based on quiz completion
-                if (userQuiz.getCompletedAt() != null) { // Check if completedAt is not null
-                    LocalDateTime quizCompletedTime = LocalDateTime.parse(userQuiz.getCompletedAt(),
-                            DateTimeFormatter.ISO_DATE_TIME); // Parse String to LocalDateTime
+                LocalDateTime quizCompletedTime = null;
+                if (userQuiz.getCompletedAt() != null) {
+                    quizCompletedTime = LocalDateTime.ofInstant(userQuiz.getCompletedAt(), ZoneId.systemDefault());
                     if (data.lastActivity == null || quizCompletedTime.compareTo(data.lastActivity) > 0) {
                         data.lastActivity = quizCompletedTime;
                     }
                 }
+                String moduleId = moduleIdByQuizId.get(userQuiz.getQuizId());
+                if (moduleId != null) {
+                    addContribution(contributions, data.userId, moduleId, userQuiz.getScore(), quizCompletedTime);
+                }
             }
         }
 
-        // Convert to DTOs and sort
-        List<LeaderboardDTO> leaderboard = traineeScoreMap.values().stream()
-                .map(data -> new LeaderboardDTO(
-                        null, // ID will be generated by MongoDB for Leaderboard collection
-                        data.userId,
-                        data.userName,
-                        data.score,
-                        data.completedModules,
-                        data.totalModules,
-                        data.lastActivity != null ? data.lastActivity.format(DateTimeFormatter.ISO_DATE_TIME) : null // Format
-                                                                                                                     // LocalDateTime
-                                                                                                                     // to
-                                                                                                                     // String
-                                                                                                                     // for
-                                                                                                                     // DTO
-                ))
-                .sorted(Comparator.comparingInt(LeaderboardDTO::getScore).reversed()
-                        .thenComparing(data -> data.getLastUpdatedAt(),
-                                Comparator.nullsLast(Comparator.reverseOrder()))) // Sort by last activity, nulls last
-                .collect(Collectors.toList());
+        if (traineeScoreMap.isEmpty()) {
+            loadRankIndex();
+            return;
+        }
+
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Leaderboard.class);
+        for (TraineeScoreData data : traineeScoreMap.values()) {
+            Update update = new Update()
+                    .set("userName", data.userName)
+                    .set("score", data.score)
+                    .set("completedModules", data.completedModules)
+                    .set("totalModules", data.totalModules)
+                    .set("lastUpdated", data.lastActivity)
+                    .set("lastUpdatedAt", data.lastActivity != null
+                            ? data.lastActivity.atZone(ZoneId.systemDefault()).toInstant()
+                            : null);
+            bulkOperations.upsert(new Query(Criteria.where("userId").is(data.userId)), update.inc("revision", 1));
+        }
+        bulkOperations.execute();
 
-        return leaderboard;
+        mongoTemplate.remove(new Query(), LeaderboardContribution.class);
+        if (!contributions.isEmpty()) {
+            mongoTemplate.insert(contributions.values(), LeaderboardContribution.class);
+        }
+        loadRankIndex();
     }
 
-    @Override
-    public List<LeaderboardDTO> getTopLeaderboards() {
-        // Get all leaderboard entries and take the top 10
-        return getAllLeaderboards().stream()
-                .limit(10)
-                .collect(Collectors.toList());
+    private static void addContribution(Map<String, LeaderboardContribution> contributions, String userId,
+            String moduleId, int score, LocalDateTime at) {
+        LeaderboardContribution contribution = contributions.computeIfAbsent(userId + "|" + moduleId, key -> {
+            LeaderboardContribution created = new LeaderboardContribution();
+            created.setUserId(userId);
+            created.setModuleId(moduleId);
+            return created;
+        });
+        contribution.setScore(contribution.getScore() + score);
+        if (at != null && (contribution.getLastUpdated() == null || at.isAfter(contribution.getLastUpdated()))) {
+            contribution.setLastUpdated(at);
+        }
     }
 
-    @Override
-    public LeaderboardDTO getLeaderboardByUserId(String userId) {
-        // Get all leaderboard entries and find the one for the specific user
-        Optional<LeaderboardDTO> userLeaderboard = getAllLeaderboards().stream()
-                .filter(dto -> dto.getUserId().equals(userId))
-                .findFirst();
+    private void loadRankIndex() {
+        rankIndex.reset(leaderboardRepository.findAll());
+        loadPartitions();
+        rankIndexLoaded = true;
+    }
+
+    // Rebuilds the skill and type partitions from module tags and per-module scores
+    private void loadPartitions() {
+        partitions.clear();
+        Query moduleQuery = new Query();
+        moduleQuery.fields().include("type", "skills");
+        mongoTemplate.find(moduleQuery, Module.class).forEach(this::updateModulePartitions);
+
+        try (Stream<LeaderboardContribution> contributions = mongoTemplate.stream(new Query(),
+                LeaderboardContribution.class)) {
+            contributions.forEach(contribution -> {
+                Leaderboard leaderboard = rankIndex.get(contribution.getUserId());
+                partitions.record(contribution.getUserId(), leaderboard != null ? leaderboard.getUserName() : null,
+                        contribution.getModuleId(), contribution.getScore(), contribution.getLastUpdated());
+            });
+        }
+    }
 
-        return userLeaderboard
-                .orElseThrow(() -> new RuntimeException("Leaderboard entry not found for user: " + userId));
+    // Lazily loads the index when startup initialization could not reach the database
+    private LeaderboardRankIndex rankIndex() {
+        if (!rankIndexLoaded) {
+            synchronized (rankIndex) {
+                if (!rankIndexLoaded) {
+                    loadRankIndex();
+                }
+            }
+        }
+        return rankIndex;
     }
 
     // Helper class to hold trainee score data during calculation
@@ -174,7 +480,8 @@ public class LeaderboardServiceImpl implements LeaderboardService {
             leaderboard.setScore(leaderboardDTO.getScore());
             leaderboard.setCompletedModules(leaderboardDTO.getCompletedModules());
             leaderboard.setTotalModules(leaderboardDTO.getTotalModules());
-            leaderboard.setLastUpdatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+            leaderboard.setLastUpdatedAt(Instant.now());
+            leaderboard.setRevision(leaderboard.getRevision() + 1);
         } else {
             // Create new entry
             leaderboard = new Leaderboard();
@@ -183,22 +490,52 @@ public class LeaderboardServiceImpl implements LeaderboardService {
             leaderboard.setScore(leaderboardDTO.getScore());
             leaderboard.setCompletedModules(leaderboardDTO.getCompletedModules());
             leaderboard.setTotalModules(leaderboardDTO.getTotalModules());
-            leaderboard.setLastUpdatedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+            leaderboard.setLastUpdatedAt(Instant.now());
         }
 
-        Leaderboard savedLeaderboard = leaderboardRepository.save(leaderboard);
-        return new LeaderboardDTO(
-                savedLeaderboard.getId(),
-                savedLeaderboard.getUserId(),
-                savedLeaderboard.getUserName(),
-                savedLeaderboard.getScore(),
-                savedLeaderboard.getCompletedModules(),
-                savedLeaderboard.getTotalModules(),
-                savedLeaderboard.getLastUpdatedAt());
+        return indexAndPublish(leaderboardRepository.save(leaderboard));
     }
 
     @Override
     public void deleteLeaderboard(String id) {
-        leaderboardRepository.deleteById(id);
+        leaderboardRepository.findById(id).ifPresent(leaderboard -> {
+            leaderboardRepository.deleteById(id);
+            rankIndex.remove(leaderboard.getUserId());
+            // Its per-module scores would bring the user back into the partitions on the next load
+            mongoTemplate.remove(new Query(Criteria.where("userId").is(leaderboard.getUserId())),
+                    LeaderboardContribution.class);
+            partitions.removeUser(leaderboard.getUserId());
+        });
+    }
+
+    // Updates the rank index and notifies stream subscribers of the new position
+    private LeaderboardDTO indexAndPublish(Leaderboard leaderboard) {
+        rankIndex.put(leaderboard);
+        LeaderboardDTO dto = convertToDTO(leaderboard);
+        dto.setRank(rankIndex.rankOf(leaderboard.getUserId()));
+        leaderboardBroadcaster.publish(dto);
+        return dto;
+    }
+
+    private List<LeaderboardDTO> toRankedDTOs(List<Leaderboard> entries, int firstRank) {
+        List<LeaderboardDTO> dtos = new ArrayList<>(entries.size());
+        int rank = firstRank;
+        for (Leaderboard entry : entries) {
+            LeaderboardDTO dto = convertToDTO(entry);
+            dto.setRank(rank++);
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    private LeaderboardDTO convertToDTO(Leaderboard leaderboard) {
+        return new LeaderboardDTO(
+                leaderboard.getId(),
+                leaderboard.getUserId(),
+                leaderboard.getUserName(),
+                leaderboard.getScore(),
+                leaderboard.getCompletedModules(),
+                leaderboard.getTotalModules(),
+                ApiTimestamps.format(leaderboard.getLastUpdatedAt()));
     }
 }
\ No newline at end of file
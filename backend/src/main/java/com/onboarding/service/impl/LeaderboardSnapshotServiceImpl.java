@@ -0,0 +1,259 @@
+package com.onboarding.service.impl;
+
+import com.onboarding.dto.LeaderboardDTO;
+import com.onboarding.dto.LeaderboardRankPointDTO;
+import com.onboarding.dto.LeaderboardSnapshotDTO;
+import com.onboarding.model.Leaderboard;
+import com.onboarding.model.LeaderboardSnapshot;
+import com.onboarding.model.LeaderboardSnapshotEntry;
+import com.onboarding.service.ApiTimestamps;
+import com.onboarding.service.LeaderboardSnapshotService;
+import com.onboarding.service.leaderboard.LeaderboardRankIndex;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a history of the leaderboard as delta-encoded snapshots. Only the
+ * score ordering key (score and lastUpdated) and module counts of changed users
+ * are stored; ranks are derived on replay, so a single score change costs one
+ * entry instead of one per trainee whose rank shifted.
+ * <p>
+ * Every {@code leaderboard.snapshot.keyframe-interval}th snapshot is a keyframe
+ * holding the whole board, so reading the board at a sequence replays at most
+ * that many snapshots instead of the whole history.
+ */
+@Service
+@Timed("onboarding.service")
+public class LeaderboardSnapshotServiceImpl implements LeaderboardSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardSnapshotServiceImpl.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int keyframeInterval;
+
+    // Board as of the latest stored snapshot, diffed against the live board
+    private Map<String, Leaderboard> lastState;
+    private long lastSequence;
+
+    @Autowired
+    public LeaderboardSnapshotServiceImpl(MongoTemplate mongoTemplate,
+            @Value("${leaderboard.snapshot.keyframe-interval:24}") int keyframeInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.snapshot.interval-ms:3600000}",
+            initialDelayString = "${leaderboard.snapshot.interval-ms:3600000}")
+    public void scheduledSnapshot() {
+        try {
+            LeaderboardSnapshotDTO snapshot = takeSnapshot();
+            if (snapshot != null) {
+                log.debug("Stored leaderboard snapshot {} with {} changes", snapshot.getSequence(),
+                        snapshot.getChangeCount());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Leaderboard snapshot skipped: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized LeaderboardSnapshotDTO takeSnapshot() {
+        if (lastState == null) {
+            loadLastState();
+        }
+
+        Map<String, Leaderboard> current = readCurrentBoard();
+        List<LeaderboardSnapshotEntry> changes = new ArrayList<>();
+        for (Leaderboard entry : current.values()) {
+            Leaderboard previous = lastState.get(entry.getUserId());
+            if (previous == null) {
+                changes.add(toChange(entry, true));
+            } else if (previous.getScore() != entry.getScore()
+                    || previous.getCompletedModules() != entry.getCompletedModules()
+                    || previous.getTotalModules() != entry.getTotalModules()
+                    || !Objects.equals(previous.getLastUpdated(), entry.getLastUpdated())
+                    || !Objects.equals(previous.getUserName(), entry.getUserName())) {
+                changes.add(toChange(entry, !Objects.equals(previous.getUserName(), entry.getUserName())));
+            }
+        }
+        for (String userId : lastState.keySet()) {
+            if (!current.containsKey(userId)) {
+                LeaderboardSnapshotEntry removal = new LeaderboardSnapshotEntry();
+                removal.setUserId(userId);
+                removal.setRemoved(true);
+                changes.add(removal);
+            }
+        }
+        if (changes.isEmpty()) {
+            return null;
+        }
+
+        LeaderboardSnapshot snapshot = new LeaderboardSnapshot();
+        snapshot.setSequence(lastSequence + 1);
+        snapshot.setTakenAt(LocalDateTime.now());
+        snapshot.setChangeCount(changes.size());
+        if (snapshot.getSequence() % keyframeInterval == 0) {
+            // Every entry plus this snapshot's removals, so it also replays onto the previous board
+            List<LeaderboardSnapshotEntry> board = new ArrayList<>();
+            current.values().forEach(entry -> board.add(toChange(entry, true)));
+            changes.stream().filter(LeaderboardSnapshotEntry::isRemoved).forEach(board::add);
+            snapshot.setKeyframe(true);
+            snapshot.setChanges(board);
+        } else {
+            snapshot.setChanges(changes);
+        }
+        try {
+            mongoTemplate.insert(snapshot);
+        } catch (DuplicateKeyException e) {
+            // Another instance stored this sequence first; diff against its history next time
+            lastState = null;
+            return null;
+        }
+
+        lastState = current;
+        lastSequence = snapshot.getSequence();
+        return toDTO(snapshot);
+    }
+
+    @Override
+    public List<LeaderboardSnapshotDTO> getSnapshots() {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "sequence"));
+        query.fields().include("sequence", "takenAt", "changeCount");
+        return mongoTemplate.find(query, LeaderboardSnapshot.class).stream()
+                .map(this::toDTO)
+                .toList();
+    }
+
+    @Override
+    public List<LeaderboardDTO> getLeaderboardAt(long sequence) {
+        if (!mongoTemplate.exists(new Query(Criteria.where("sequence").is(sequence)), LeaderboardSnapshot.class)) {
+            throw new RuntimeException("Leaderboard snapshot not found: " + sequence);
+        }
+
+        LeaderboardRankIndex board = new LeaderboardRankIndex();
+        replay(latestKeyframe(sequence), sequence,
+                snapshot -> snapshot.getChanges().forEach(change -> apply(board, change)));
+
+        List<LeaderboardDTO> dtos = new ArrayList<>(board.size());
+        int rank = 1;
+        for (Leaderboard entry : board.top(board.size())) {
+            LeaderboardDTO dto = new LeaderboardDTO(null, entry.getUserId(), entry.getUserName(),
+                    entry.getScore(), entry.getCompletedModules(), entry.getTotalModules(),
+                    ApiTimestamps.format(entry.getLastUpdated()));
+            dto.setRank(rank++);
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    @Override
+    public List<LeaderboardRankPointDTO> getRankHistory(String userId) {
+        LeaderboardRankIndex board = new LeaderboardRankIndex();
+        List<LeaderboardRankPointDTO> history = new ArrayList<>();
+        replay(0, Long.MAX_VALUE, snapshot -> {
+            snapshot.getChanges().forEach(change -> apply(board, change));
+            Leaderboard entry = board.get(userId);
+            if (entry != null) {
+                history.add(new LeaderboardRankPointDTO(snapshot.getSequence(),
+                        ApiTimestamps.format(snapshot.getTakenAt()), board.rankOf(userId), entry.getScore()));
+            }
+        });
+        return history;
+    }
+
+    private void loadLastState() {
+        LeaderboardRankIndex board = new LeaderboardRankIndex();
+        long[] sequence = { 0 };
+        replay(latestKeyframe(Long.MAX_VALUE), Long.MAX_VALUE, snapshot -> {
+            snapshot.getChanges().forEach(change -> apply(board, change));
+            sequence[0] = snapshot.getSequence();
+        });
+
+        Map<String, Leaderboard> state = new HashMap<>();
+        board.top(board.size()).forEach(entry -> state.put(entry.getUserId(), entry));
+        lastState = state;
+        lastSequence = sequence[0];
+    }
+
+    // Sequence of the latest keyframe at or before the given sequence, 0 if there is none
+    private long latestKeyframe(long upToSequence) {
+        Query query = new Query(Criteria.where("sequence").lte(upToSequence).and("keyframe").is(true))
+                .with(Sort.by(Sort.Direction.DESC, "sequence"));
+        query.fields().include("sequence");
+        LeaderboardSnapshot keyframe = mongoTemplate.findOne(query, LeaderboardSnapshot.class);
+        return keyframe != null ? keyframe.getSequence() : 0;
+    }
+
+    // Streams the snapshots between the given sequences, both included, oldest first
+    private void replay(long fromSequence, long upToSequence, Consumer<LeaderboardSnapshot> consumer) {
+        Query query = new Query(Criteria.where("sequence").gte(fromSequence).lte(upToSequence))
+                .with(Sort.by(Sort.Direction.ASC, "sequence"));
+        try (Stream<LeaderboardSnapshot> snapshots = mongoTemplate.stream(query, LeaderboardSnapshot.class)) {
+            snapshots.forEach(consumer);
+        }
+    }
+
+    private Map<String, Leaderboard> readCurrentBoard() {
+        Query query = new Query();
+        query.fields().include("userId", "userName", "score", "completedModules", "totalModules", "lastUpdated");
+        Map<String, Leaderboard> board = new HashMap<>();
+        try (Stream<Leaderboard> entries = mongoTemplate.stream(query, Leaderboard.class)) {
+            entries.forEach(entry -> board.put(entry.getUserId(), entry));
+        }
+        return board;
+    }
+
+    private static void apply(LeaderboardRankIndex board, LeaderboardSnapshotEntry change) {
+        if (change.isRemoved()) {
+            board.remove(change.getUserId());
+            return;
+        }
+        Leaderboard previous = board.get(change.getUserId());
+        Leaderboard entry = new Leaderboard();
+        entry.setUserId(change.getUserId());
+        entry.setUserName(change.getUserName() != null || previous == null
+                ? change.getUserName()
+                : previous.getUserName());
+        entry.setScore(change.getScore());
+        entry.setCompletedModules(change.getCompletedModules());
+        entry.setTotalModules(change.getTotalModules());
+        entry.setLastUpdated(change.getLastUpdated());
+        board.put(entry);
+    }
+
+    private static LeaderboardSnapshotEntry toChange(Leaderboard entry, boolean includeName) {
+        LeaderboardSnapshotEntry change = new LeaderboardSnapshotEntry();
+        change.setUserId(entry.getUserId());
+        change.setUserName(includeName ? entry.getUserName() : null);
+        change.setScore(entry.getScore());
+        change.setCompletedModules(entry.getCompletedModules());
+        change.setTotalModules(entry.getTotalModules());
+        change.setLastUpdated(entry.getLastUpdated());
+        return change;
+    }
+
+    private LeaderboardSnapshotDTO toDTO(LeaderboardSnapshot snapshot) {
+        return new LeaderboardSnapshotDTO(snapshot.getSequence(), ApiTimestamps.format(snapshot.getTakenAt()),
+                snapshot.getChangeCount());
+    }
+}
@@ -5,15 +5,28 @@ import com.onboarding.dto.SubModuleDTO;
 import com.onboarding.model.Module;
 import com.onboarding.model.SubModule;
 import com.onboarding.repository.ModuleRepository;
+import com.onboarding.service.ApiTimestamps;
+import com.onboarding.service.LeaderboardService;
 import com.onboarding.service.ModuleService;
+import com.onboarding.service.TraineeSummaryService;
+import com.onboarding.service.badge.AchievementStateReconciler;
+import com.onboarding.service.cache.ModuleStructureCache;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.onboarding.dto.ResourceDto;
@@ -26,53 +39,66 @@ import com.onboarding.model.UserProgress;
 import com.onboarding.repository.UserProgressRepository;
 
 @Service
+@Timed("onboarding.service")
 public class ModuleServiceImpl implements ModuleService {
 
+    private static final Logger log = LoggerFactory.getLogger(ModuleServiceImpl.class);
+
     private final ModuleRepository moduleRepository;
     private final SubModuleRepository subModuleRepository;
     private final MongoTemplate mongoTemplate;
     private final QuizRepository quizRepository;
     private final UserQuizRepository userQuizRepository;
     private final UserProgressRepository userProgressRepository;
+    private final LeaderboardService leaderboardService;
+    private final ModuleStructureCache moduleStructureCache;
+    private final AchievementStateReconciler achievementStateReconciler;
+    private final TraineeSummaryService traineeSummaryService;
+
+    // Catalog versions restart with the process, the prefix keeps ETags from an
+    // earlier run from matching
+    private final String catalogEpoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalogVersion = new AtomicLong(1);
+    private volatile ModuleCatalog catalog;
 
     @Autowired
     public ModuleServiceImpl(ModuleRepository moduleRepository, SubModuleRepository subModuleRepository,
             MongoTemplate mongoTemplate, QuizRepository quizRepository, UserQuizRepository userQuizRepository,
-            UserProgressRepository userProgressRepository) {
+            UserProgressRepository userProgressRepository, LeaderboardService leaderboardService,
+            ModuleStructureCache moduleStructureCache, AchievementStateReconciler achievementStateReconciler,
+            TraineeSummaryService traineeSummaryService) {
         this.moduleRepository = moduleRepository;
         this.subModuleRepository = subModuleRepository;
         this.mongoTemplate = mongoTemplate;
         this.quizRepository = quizRepository;
         this.userQuizRepository = userQuizRepository;
         this.userProgressRepository = userProgressRepository;
+        this.leaderboardService = leaderboardService;
+        this.moduleStructureCache = moduleStructureCache;
+        this.achievementStateReconciler = achievementStateReconciler;
+        this.traineeSummaryService = traineeSummaryService;
     }
 
     @Override
     public List<ModuleDTO> getAllModules() {
-        return moduleRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return catalog().modules();
     }
 
     @Override
-    public ModuleDTO getModuleById(String id, String userId) {
-        Module module = moduleRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Module not found"));
-        System.out.println("Module Found before fetching submodules:");
-        System.out.println(module.toString());
-
-        Query query = new Query(Criteria.where("module.$id").is(id));
-        List<SubModule> subModules = mongoTemplate.find(query, SubModule.class);
-
-        System.out.println("Fetched submodules count: " + (subModules != null ? subModules.size() : 0));
-        if (subModules != null) {
-            subModules.forEach(sub -> System.out.println("Fetched SubModule: " + sub.toString()));
-        }
+    public String getCatalogVersion() {
+        return catalogEpoch + "-" + catalogVersion.get();
+    }
 
-        module.setSubModules(subModules);
+    @Override
+    public void invalidateCatalog() {
+        catalogVersion.incrementAndGet();
+    }
 
-        System.out.println("Module object after setting submodules:");
-        System.out.println(module.toString());
+    @Override
+    public ModuleDTO getModuleById(String id, String userId) {
+        // Full submodule bodies are only loaded here, from the module's subModules references
+        Module module = moduleRepository.findWithSubModulesById(id)
+                .orElseThrow(() -> new RuntimeException("Module not found"));
 
         UserQuiz userQuiz = null;
         if (module.getQuizId() != null && userId != null) {
@@ -85,24 +111,44 @@ public class ModuleServiceImpl implements ModuleService {
         }
 
         ModuleDTO moduleDTO = convertToDTO(module, userQuiz, userProgress);
-        System.out.println("Final ModuleDTO before returning:");
-        System.out.println(moduleDTO.toString());
-
+        if (log.isDebugEnabled()) {
+            int subModules = module.getSubModules() != null ? module.getSubModules().size() : 0;
+            log.debug("Returning module {} with {} submodules for user {}, progress {}, quiz result {}", id,
+                    subModules, userId, userProgress != null ? userProgress.getStatus() : "none",
+                    userQuiz != null ? userQuiz.getScore() : "none");
+        }
         return moduleDTO;
     }
 
     @Override
     public List<ModuleDTO> getModulesByType(String type) {
-        return moduleRepository.findByType(type).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return catalog().filtered(module -> type.equals(module.getType()));
     }
 
     @Override
     public List<ModuleDTO> getModulesBySkills(List<String> skills) {
-        return moduleRepository.findBySkillsIn(skills).stream()
+        return catalog().filtered(module -> module.getSkills() != null
+                && !Collections.disjoint(module.getSkills(), skills));
+    }
+
+    /**
+     * The catalog DTOs, loaded on the first read after an invalidation. A catalog
+     * loaded while a write invalidated it is returned to its reader but not kept.
+     */
+    private ModuleCatalog catalog() {
+        long version = catalogVersion.get();
+        ModuleCatalog current = catalog;
+        if (current != null && current.version() == version) {
+            return current;
+        }
+        // Titles and order only, the list views do not show submodule content
+        ModuleCatalog loaded = new ModuleCatalog(version, moduleRepository.findAllWithSubModuleSummaries().stream()
                 .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toUnmodifiableList()));
+        if (catalogVersion.get() == version) {
+            catalog = loaded;
+        }
+        return loaded;
     }
 
     @Override
@@ -110,17 +156,31 @@ public class ModuleServiceImpl implements ModuleService {
     public ModuleDTO createModule(ModuleDTO ModuleDTO) {
         Module module = convertToEntity(ModuleDTO);
         Module savedModule = moduleRepository.save(module);
+        moduleStructureCache.evict(savedModule.getId());
+        invalidateCatalog();
+        leaderboardService.updateModulePartitions(savedModule);
         return convertToDTO(savedModule);
     }
 
     @Override
     @Transactional
     public ModuleDTO updateModule(String id, ModuleDTO ModuleDTO) {
-        Module existingModule = moduleRepository.findById(id)
+        Module existingModule = moduleRepository.findSummaryById(id)
                 .orElseThrow(() -> new RuntimeException("Module not found"));
 
-        updateModuleFromDTO(existingModule, ModuleDTO);
-        Module updatedModule = moduleRepository.save(existingModule);
+        boolean wasMandatory = existingModule.isMandatory();
+        // Only the fields the DTO carries are written, the stored subModules references stay as they are
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(id)), updateFromDTO(ModuleDTO), Module.class);
+        Module updatedModule = moduleRepository.findWithSubModulesById(id)
+                .orElseThrow(() -> new RuntimeException("Module not found"));
+        moduleStructureCache.evict(id);
+        invalidateCatalog();
+        if (updatedModule.isMandatory() != wasMandatory) {
+            // Completions of this module now count towards a different badge
+            achievementStateReconciler.requestReconciliation();
+        }
+        // Only moves this module's scores if its skills or type changed
+        leaderboardService.updateModulePartitions(updatedModule);
         return convertToDTO(updatedModule);
     }
 
@@ -128,6 +188,11 @@ public class ModuleServiceImpl implements ModuleService {
     @Transactional
     public void deleteModule(String id) {
         moduleRepository.deleteById(id);
+        moduleStructureCache.evict(id);
+        invalidateCatalog();
+        leaderboardService.removeModulePartitions(id);
+        achievementStateReconciler.requestReconciliation();
+        traineeSummaryService.requestRebuild();
     }
 
     private ModuleDTO convertToDTO(Module module, UserQuiz userQuiz, UserProgress userProgress) {
@@ -148,8 +213,7 @@ public class ModuleServiceImpl implements ModuleService {
             dto.setUserProgressId(userProgress.getId());
             dto.setCompletionPercentage(userProgress.getCompletionPercentage());
             dto.setStatus(userProgress.getStatus());
-            dto.setLastAccessedAt(
-                    userProgress.getLastAccessedAt() != null ? userProgress.getLastAccessedAt().toString() : null);
+            dto.setLastAccessedAt(ApiTimestamps.format(userProgress.getLastAccessedAt()));
         } else {
             // Default values if no user progress found
             dto.setUserProgressId(null);
@@ -240,6 +304,13 @@ public class ModuleServiceImpl implements ModuleService {
         return dto;
     }
 
+    private record ModuleCatalog(long version, List<ModuleDTO> modules) {
+
+        List<ModuleDTO> filtered(Predicate<ModuleDTO> filter) {
+            return modules.stream().filter(filter).collect(Collectors.toList());
+        }
+    }
+
     private ResourceDto convertResourceToDTO(Resource resource) {
         ResourceDto dto = new ResourceDto();
         dto.setTitle(resource.getTitle());
@@ -277,13 +348,14 @@ public class ModuleServiceImpl implements ModuleService {
         return subModule;
     }
 
-    private void updateModuleFromDTO(Module module, ModuleDTO dto) {
-        module.setTitle(dto.getTitle());
-        module.setDescription(dto.getDescription());
-        module.setType(dto.getType());
-        module.setSkills(dto.getSkills());
-        module.setOrder(dto.getOrder());
-        module.setActive(dto.isActive());
-        module.setQuizId(dto.getQuizId());
+    private static Update updateFromDTO(ModuleDTO dto) {
+        return new Update()
+                .set("title", dto.getTitle())
+                .set("description", dto.getDescription())
+                .set("type", dto.getType())
+                .set("skills", dto.getSkills())
+                .set("order", dto.getOrder())
+                .set("active", dto.isActive())
+                .set("quizId", dto.getQuizId());
     }
 }
\ No newline at end of file
@@ -1,113 +1,78 @@
 package com.onboarding.service.impl;
 
 import com.onboarding.dto.ProgressDTO;
+import com.onboarding.dto.SubModuleCompletionDTO;
+import com.onboarding.dto.SubModuleCompletionResultDTO;
+import com.onboarding.model.TraineeSummary;
 import com.onboarding.model.UserProgress;
-import com.onboarding.model.UserQuiz;
-import com.onboarding.model.User;
-import com.onboarding.model.Achievement;
-import com.onboarding.model.Module;
-import com.onboarding.model.Quiz;
-import com.onboarding.model.SubModule;
-import com.onboarding.repository.UserProgressRepository;
-import com.onboarding.repository.UserQuizRepository;
-import com.onboarding.repository.ModuleRepository;
-import com.onboarding.repository.UserRepository;
-import com.onboarding.repository.AchievementRepository;
-import com.onboarding.repository.QuizRepository;
+import com.onboarding.service.ApiTimestamps;
+import com.onboarding.service.LeaderboardService;
 import com.onboarding.service.ProgressService;
+import com.onboarding.service.TraineeSummaryService;
+import com.onboarding.service.badge.BadgePipeline;
+import com.onboarding.service.cache.ModuleStructure;
+import com.onboarding.service.cache.ModuleStructureCache;
+import com.onboarding.service.progress.ProgressUpdates;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
+@Timed("onboarding.service")
 public class ProgressServiceImpl implements ProgressService {
 
-    private final UserProgressRepository userProgressRepository;
-    private final UserQuizRepository userQuizRepository;
-    private final ModuleRepository moduleRepository;
-    private final UserRepository userRepository;
-    private final AchievementRepository achievementRepository;
-    private final QuizRepository quizRepository;
     private final MongoTemplate mongoTemplate;
+    private final LeaderboardService leaderboardService;
+    private final ModuleStructureCache moduleStructureCache;
+    private final BadgePipeline badgePipeline;
+    private final TraineeSummaryService traineeSummaryService;
+
+    private static final int MAX_BATCH_SIZE = 500;
 
     @Autowired
     public ProgressServiceImpl(
-            UserProgressRepository userProgressRepository,
-            UserQuizRepository userQuizRepository,
-            ModuleRepository moduleRepository,
-            UserRepository userRepository,
-            AchievementRepository achievementRepository,
-            QuizRepository quizRepository,
-            MongoTemplate mongoTemplate) {
-        this.userProgressRepository = userProgressRepository;
-        this.userQuizRepository = userQuizRepository;
-        this.moduleRepository = moduleRepository;
-        this.userRepository = userRepository;
-        this.achievementRepository = achievementRepository;
-        this.quizRepository = quizRepository;
+            MongoTemplate mongoTemplate,
+            LeaderboardService leaderboardService,
+            ModuleStructureCache moduleStructureCache,
+            BadgePipeline badgePipeline,
+            TraineeSummaryService traineeSummaryService) {
         this.mongoTemplate = mongoTemplate;
+        this.leaderboardService = leaderboardService;
+        this.moduleStructureCache = moduleStructureCache;
+        this.badgePipeline = badgePipeline;
+        this.traineeSummaryService = traineeSummaryService;
     }
 
     @Override
     public ProgressDTO getTraineeProgress(String userId) {
-        // Get all progress entries for the user
-        List<UserProgress> progressEntries = userProgressRepository.findByUserId(userId);
-
-        // Count modules by status
-        int completed = 0;
-        int inProgress = 0;
-        int notStarted = 0;
-        String lastActivity = null;
-
-        for (UserProgress progress : progressEntries) {
-            switch (progress.getStatus()) {
-                case "COMPLETED":
-                    completed++;
-                    break;
-                case "IN_PROGRESS":
-                    inProgress++;
-                    break;
-                case "NOT_STARTED":
-                    notStarted++;
-                    break;
-            }
-
-            // Track last activity
-            if (lastActivity == null || (progress.getLastAccessedAt() != null && progress.getLastAccessedAt()
-                    .compareTo(LocalDateTime.parse(lastActivity, DateTimeFormatter.ISO_DATE_TIME)) > 0)) {
-                lastActivity = progress.getLastAccessedAt().format(DateTimeFormatter.ISO_DATE_TIME);
-            }
-        }
-
-        // Calculate average score from completed quizzes
-        List<UserQuiz> userQuizzes = userQuizRepository.findByUserId(userId);
-        int totalScore = 0;
-        int completedQuizzes = 0;
-
-        for (UserQuiz userQuiz : userQuizzes) {
-            if (userQuiz.isCompleted()) {
-                totalScore += userQuiz.getScore();
-                completedQuizzes++;
-            }
-        }
-
-        int averageScore = completedQuizzes > 0 ? totalScore / completedQuizzes : 0;
+        // Module counts, last activity and quiz average are kept in the trainee's summary
+        TraineeSummary summary = traineeSummaryService.getSummary(userId);
+        LocalDateTime lastActivity = summary.getLastActivity() != null ? summary.getLastActivity()
+                : LocalDateTime.now();
 
         return new ProgressDTO(
-                completed,
-                inProgress,
-                notStarted,
-                lastActivity != null ? lastActivity : LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME),
-                averageScore);
+                summary.getCompletedModules(),
+                summary.getInProgressModules(),
+                summary.getNotStartedModules(),
+                ApiTimestamps.format(lastActivity),
+                summary.getAverageQuizScore());
     }
 
     @Override
@@ -120,134 +85,203 @@ public class ProgressServiceImpl implements ProgressService {
     @Override
     @Transactional
     public void completeSubModule(String userId, String moduleId, String subModuleId) {
-        UserProgress userProgress = userProgressRepository.findByUserIdAndModuleId(userId, moduleId)
-                .orElse(new UserProgress(userId, moduleId, "NOT_STARTED", 0));
+        ModuleStructure module = moduleStructureCache.get(moduleId)
+                .orElseThrow(() -> new RuntimeException("Module not found with id: " + moduleId));
 
-        // Add sub-module if not already completed
-        if (!userProgress.getCompletedSubModuleIds().contains(subModuleId)) {
-            userProgress.getCompletedSubModuleIds().add(subModuleId);
-        }
-
-        // Get module with submodules using MongoTemplate
-        Query query = new Query(Criteria.where("id").is(moduleId));
-        Module module = mongoTemplate.findOne(query, Module.class);
-        if (module == null) {
-            throw new RuntimeException("Module not found with id: " + moduleId);
-        }
-
-        // Load submodules explicitly
-        List<SubModule> subModules = mongoTemplate.find(
-                new Query(Criteria.where("module.$id").is(moduleId)),
-                SubModule.class);
-        module.setSubModules(subModules);
-
-        if (subModules == null || subModules.isEmpty()) {
+        if (module.getSubModuleCount() == 0) {
             throw new RuntimeException("No submodules found for module id: " + moduleId);
         }
 
         // Validate that the completed submodule exists in the module
-        if (!subModules.stream().anyMatch(sub -> sub.getId().equals(subModuleId))) {
+        if (!module.containsSubModule(subModuleId)) {
             throw new RuntimeException("Submodule " + subModuleId + " not found in module " + moduleId);
         }
 
-        int totalSections = subModules.size();
-        int completedSections = userProgress.getCompletedSubModuleIds().size();
+        boolean includeQuizInCompletion = module.isQuizIncludedInCompletion();
+        int totalItems = module.getSubModuleCount() + (includeQuizInCompletion ? 1 : 0);
+
+        LocalDateTime now = LocalDateTime.now();
+        UserProgress previous = addCompletedSubModule(userId, moduleId, subModuleId, totalItems,
+                includeQuizInCompletion, now);
+        boolean created = false;
+        if (previous == null) {
+            // Either there is no progress entry yet or the submodule is already
+            // completed; make sure the entry exists and try once more
+            created = createProgressIfMissing(userId, moduleId, now);
+            previous = addCompletedSubModule(userId, moduleId, subModuleId, totalItems, includeQuizInCompletion,
+                    now);
+            if (previous == null) {
+                return; // Submodule already completed, nothing to do
+            }
+        }
 
-        // Calculate completion percentage including quiz if applicable
-        int totalItems = totalSections;
-        int completedItems = completedSections;
+        // Same formula as the server-side update, applied to the document before it
+        int completedItems = previous.getCompletedSubModuleIds().size() + 1
+                + (includeQuizInCompletion && previous.isQuizCompleted() ? 1 : 0);
+        int newPercentage = (completedItems * 100) / totalItems;
+        String newStatus = ProgressUpdates.statusFor(newPercentage);
+        String previousStatus = created ? null : previous.getStatus();
 
-        boolean includeQuizInCompletion = module.getQuizId() != null
-                && ("MANDATORY".equals(module.getCompletionMode())
-                        || "SELF_LEARNED".equals(module.getCompletionMode()));
+        leaderboardService.applyProgressChange(userId, moduleId, module.isMandatory(), previousStatus, newStatus,
+                0);
+        traineeSummaryService.applyProgressChange(userId, previousStatus, previous.getCompletionPercentage(),
+                newStatus, newPercentage, now);
 
-        if (includeQuizInCompletion) {
-            totalItems++; // Add quiz to total items
-            UserQuiz userQuiz = userQuizRepository.findByUserIdAndQuizId(userId, module.getQuizId()).orElse(null);
-            if (userQuiz != null && userQuiz.isCompleted()) {
-                completedItems++; // Add completed quiz to completed items
-            }
+        // Re-check for Mandatory and Self Learned Modules Completion badges after
+        // updating progress, without holding up the response
+        if ("COMPLETED".equals(newStatus) && !newStatus.equals(previousStatus)) {
+            badgePipeline.publishModuleCompletions(userId, List.of(moduleId));
+        }
+    }
+
+    @Override
+    public List<SubModuleCompletionResultDTO> completeSubModules(List<SubModuleCompletionDTO> completions) {
+        if (completions.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " completions per batch");
         }
 
-        int completionPercentage = totalItems > 0 ? (completedItems * 100) / totalItems : 0;
+        List<SubModuleCompletionResultDTO> results = new ArrayList<>(completions.size());
+        // Valid items grouped per (user, module), in request order
+        Map<List<String>, List<SubModuleCompletionResultDTO>> groups = new LinkedHashMap<>();
+        for (SubModuleCompletionDTO completion : completions) {
+            SubModuleCompletionResultDTO result = new SubModuleCompletionResultDTO(completion.getUserId(),
+                    completion.getModuleId(), completion.getSubModuleId());
+            results.add(result);
+            String rejection = validateCompletion(completion);
+            if (rejection != null) {
+                result.reject(rejection);
+            } else {
+                groups.computeIfAbsent(List.of(completion.getUserId(), completion.getModuleId()),
+                        key -> new ArrayList<>()).add(result);
+            }
+        }
+        if (groups.isEmpty()) {
+            return results;
+        }
 
-        userProgress.setCompletionPercentage(completionPercentage);
-        userProgress.setLastAccessedAt(LocalDateTime.now());
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, List<String>> badgeChecks = new LinkedHashMap<>(); // userId -> newly completed modules
+        for (Map.Entry<List<String>, List<SubModuleCompletionResultDTO>> group : groups.entrySet()) {
+            String userId = group.getKey().get(0);
+            String moduleId = group.getKey().get(1);
+            Optional<ModuleStructure> module = moduleStructureCache.get(moduleId);
+            if (module.isEmpty()) {
+                // Deleted since the batch was validated
+                group.getValue().forEach(result -> result.reject("Module not found with id: " + moduleId));
+                continue;
+            }
+            boolean includeQuizInCompletion = module.get().isQuizIncludedInCompletion();
+            int totalItems = module.get().getSubModuleCount() + (includeQuizInCompletion ? 1 : 0);
+            List<String> subModuleIds = group.getValue().stream()
+                    .map(SubModuleCompletionResultDTO::getSubModuleId)
+                    .distinct()
+                    .toList();
+
+            // Changes are derived from the entry as it was right before this update,
+            // so concurrent completions of the same entry are never counted twice
+            UserProgress previous = upsertCompletions(userId, moduleId, subModuleIds, totalItems,
+                    includeQuizInCompletion, now);
+            Set<String> completed = previous != null ? new HashSet<>(previous.getCompletedSubModuleIds())
+                    : new HashSet<>();
+            int completedBefore = completed.size();
+            for (SubModuleCompletionResultDTO result : group.getValue()) {
+                result.setStatus(completed.add(result.getSubModuleId()) ? SubModuleCompletionResultDTO.COMPLETED
+                        : SubModuleCompletionResultDTO.ALREADY_COMPLETED);
+            }
+            if (completed.size() == completedBefore) {
+                continue;
+            }
 
-        // Update status based on completion percentage
-        if (completionPercentage == 100) {
-            userProgress.setStatus("COMPLETED");
-            userProgress.setCompletedAt(LocalDateTime.now());
-        } else if (completionPercentage > 0) {
-            userProgress.setStatus("IN_PROGRESS");
-        } else {
-            userProgress.setStatus("NOT_STARTED");
+            int completedItems = completed.size()
+                    + (includeQuizInCompletion && previous != null && previous.isQuizCompleted() ? 1 : 0);
+            int newPercentage = (completedItems * 100) / totalItems;
+            String newStatus = ProgressUpdates.statusFor(newPercentage);
+            String previousStatus = previous != null ? previous.getStatus() : null;
+            int previousPercentage = previous != null ? previous.getCompletionPercentage() : 0;
+            leaderboardService.applyProgressChange(userId, moduleId, module.get().isMandatory(), previousStatus,
+                    newStatus, 0);
+            traineeSummaryService.applyProgressChange(userId, previousStatus, previousPercentage, newStatus,
+                    newPercentage, now);
+            if ("COMPLETED".equals(newStatus) && !newStatus.equals(previousStatus)) {
+                badgeChecks.computeIfAbsent(userId, id -> new ArrayList<>()).add(moduleId);
+            }
         }
 
-        userProgressRepository.save(userProgress);
+        badgeChecks.forEach(badgePipeline::publishModuleCompletions);
+        return results;
+    }
 
-        // Add log to check the saved userProgress object
-        System.out.println("Saved UserProgress object: " + userProgress.toString());
+    // Returns the reason a completion cannot be applied, or null if it is valid
+    private String validateCompletion(SubModuleCompletionDTO completion) {
+        if (isBlank(completion.getUserId()) || isBlank(completion.getModuleId())
+                || isBlank(completion.getSubModuleId())) {
+            return "userId, moduleId and subModuleId are required";
+        }
+        Optional<ModuleStructure> module = moduleStructureCache.get(completion.getModuleId());
+        if (module.isEmpty()) {
+            return "Module not found with id: " + completion.getModuleId();
+        }
+        if (!module.get().containsSubModule(completion.getSubModuleId())) {
+            return "Submodule " + completion.getSubModuleId() + " not found in module " + completion.getModuleId();
+        }
+        return null;
+    }
 
-        // Re-check for Mandatory and Self Learned Modules Completion badges after
-        // updating progress
-        checkAndAwardModuleCompletionBadges(userId, moduleId, userProgress.getStatus());
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 
-    // Extracted badge logic to a separate method to be called from here and
-    // submitQuiz
-    private void checkAndAwardModuleCompletionBadges(String userId, String moduleId, String moduleStatus) {
-        if ("COMPLETED".equals(moduleStatus)) {
-            // Check for Mandatory Modules Completion badge
-            Set<String> mandatoryModuleIds = moduleRepository.findByIsMandatoryTrue().stream()
-                    .map(module -> module.getId())
-                    .collect(Collectors.toSet());
-
-            Set<String> userCompletedModuleIds = userProgressRepository.findByUserId(userId).stream()
-                    .filter(progress -> "COMPLETED".equals(progress.getStatus()))
-                    .map(UserProgress::getModuleId)
-                    .collect(Collectors.toSet());
-
-            boolean allMandatoryCompleted = userCompletedModuleIds.containsAll(mandatoryModuleIds);
-
-            if (allMandatoryCompleted) {
-                userRepository.findById(userId).ifPresent(user -> {
-                    String mandatoryBadgeId = "mandatory-completion";
-                    if (!user.getEarnedAchievementIds().contains(mandatoryBadgeId)) {
-                        user.getEarnedAchievementIds().add(mandatoryBadgeId);
-                        user.setBadgesEarnedCount(user.getBadgesEarnedCount() + 1);
-                        userRepository.save(user);
-                    }
-                });
-            }
+    /**
+     * Atomically adds the submodule to the user's progress and recomputes the
+     * completion percentage and status on the server, in a single round trip.
+     *
+     * @return the progress entry as it was before the update, or null if no
+     *         entry exists or the submodule was already completed
+     */
+    private UserProgress addCompletedSubModule(String userId, String moduleId, String subModuleId,
+            int totalItems, boolean includeQuizInCompletion, LocalDateTime now) {
+        Query query = new Query(Criteria.where("userId").is(userId)
+                .and("moduleId").is(moduleId)
+                .and("completedSubModuleIds").ne(subModuleId));
+        return mongoTemplate.findAndModify(query,
+                ProgressUpdates.completion(List.of(subModuleId), false, totalItems, includeQuizInCompletion, now),
+                FindAndModifyOptions.options().returnNew(false), UserProgress.class);
+    }
 
-            // Check for Self Learned Modules Completion badge
-            if (!moduleRepository.findById(moduleId).orElseThrow().isMandatory()) { // Check if the completed module is
-                                                                                    // non-mandatory
-                Set<String> nonMandatoryModuleIds = moduleRepository.findAll().stream()
-                        .filter(module -> !module.isMandatory())
-                        .map(module -> module.getId())
-                        .collect(Collectors.toSet());
-
-                Set<String> userCompletedNonMandatoryModuleIds = userProgressRepository.findByUserId(userId).stream()
-                        .filter(progress -> "COMPLETED".equals(progress.getStatus()))
-                        .map(UserProgress::getModuleId)
-                        .filter(nonMandatoryModuleIds::contains)
-                        .collect(Collectors.toSet());
-
-                int selfLearnedThreshold = 3;
-
-                if (userCompletedNonMandatoryModuleIds.size() >= selfLearnedThreshold) {
-                    userRepository.findById(userId).ifPresent(user -> {
-                        String selfLearnedBadgeId = "self-learned-completion";
-                        if (!user.getEarnedAchievementIds().contains(selfLearnedBadgeId)) {
-                            user.getEarnedAchievementIds().add(selfLearnedBadgeId);
-                            user.setBadgesEarnedCount(user.getBadgesEarnedCount() + 1);
-                            userRepository.save(user);
-                        }
-                    });
-                }
-            }
+    /**
+     * Adds the submodules to the user's progress, creating the entry if needed,
+     * in a single findAndModify.
+     *
+     * @return the entry as it was before the update, or null if it was created
+     */
+    private UserProgress upsertCompletions(String userId, String moduleId, List<String> subModuleIds,
+            int totalItems, boolean includeQuizInCompletion, LocalDateTime now) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("moduleId").is(moduleId));
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(false);
+        AggregationUpdate update = ProgressUpdates.completion(subModuleIds, false, totalItems,
+                includeQuizInCompletion, now);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, UserProgress.class);
+        } catch (DuplicateKeyException e) {
+            // Lost the insert race against a concurrent request, the entry exists now
+            return mongoTemplate.findAndModify(query, update, options, UserProgress.class);
+        }
+    }
+
+    // Inserts an empty progress entry unless one already exists, returns true if it did
+    private boolean createProgressIfMissing(String userId, String moduleId, LocalDateTime now) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("moduleId").is(moduleId));
+        Update update = new Update()
+                .setOnInsert("status", "NOT_STARTED")
+                .setOnInsert("completionPercentage", 0)
+                .setOnInsert("lastAccessedAt", now)
+                .setOnInsert("completedSubModuleIds", List.of())
+                .setOnInsert("quizCompleted", false);
+        try {
+            return mongoTemplate.upsert(query, update, UserProgress.class).getUpsertedId() != null;
+        } catch (DuplicateKeyException e) {
+            // Lost the insert race against a concurrent request, the entry exists now
+            return false;
         }
     }
-}
\ No newline at end of file
+}
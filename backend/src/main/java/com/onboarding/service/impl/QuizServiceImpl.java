@@ -7,49 +7,61 @@ import com.onboarding.dto.QuestionDTO;
 import com.onboarding.model.Quiz;
 import com.onboarding.model.Question;
 import com.onboarding.model.UserQuiz;
-import com.onboarding.model.User;
-import com.onboarding.model.Achievement;
-import com.onboarding.model.Module;
 import com.onboarding.model.UserProgress;
 import com.onboarding.repository.QuizRepository;
 import com.onboarding.repository.UserQuizRepository;
-import com.onboarding.repository.UserRepository;
-import com.onboarding.repository.AchievementRepository;
-import com.onboarding.repository.UserProgressRepository;
-import com.onboarding.repository.ModuleRepository;
+import com.onboarding.service.LeaderboardService;
+import com.onboarding.service.ModuleService;
 import com.onboarding.service.QuizService;
+import com.onboarding.service.TraineeSummaryService;
+import com.onboarding.service.badge.BadgePipeline;
+import com.onboarding.service.cache.ModuleStructure;
+import com.onboarding.service.cache.ModuleStructureCache;
+import com.onboarding.service.progress.ProgressUpdates;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("onboarding.service")
 public class QuizServiceImpl implements QuizService {
 
     private final QuizRepository quizRepository;
     private final UserQuizRepository userQuizRepository;
-    private final UserRepository userRepository;
-    private final AchievementRepository achievementRepository;
-    private final UserProgressRepository userProgressRepository;
-    private final ModuleRepository moduleRepository;
+    private final LeaderboardService leaderboardService;
+    private final ModuleStructureCache moduleStructureCache;
+    private final BadgePipeline badgePipeline;
+    private final TraineeSummaryService traineeSummaryService;
+    private final ModuleService moduleService;
+    private final MongoTemplate mongoTemplate;
 
     @Autowired
     public QuizServiceImpl(QuizRepository quizRepository, UserQuizRepository userQuizRepository,
-            UserRepository userRepository, AchievementRepository achievementRepository,
-            UserProgressRepository userProgressRepository, ModuleRepository moduleRepository) {
+            LeaderboardService leaderboardService, ModuleStructureCache moduleStructureCache,
+            BadgePipeline badgePipeline, TraineeSummaryService traineeSummaryService, ModuleService moduleService,
+            MongoTemplate mongoTemplate) {
         this.quizRepository = quizRepository;
         this.userQuizRepository = userQuizRepository;
-        this.userRepository = userRepository;
-        this.achievementRepository = achievementRepository;
-        this.userProgressRepository = userProgressRepository;
-        this.moduleRepository = moduleRepository;
+        this.leaderboardService = leaderboardService;
+        this.moduleStructureCache = moduleStructureCache;
+        this.badgePipeline = badgePipeline;
+        this.traineeSummaryService = traineeSummaryService;
+        this.moduleService = moduleService;
+        this.mongoTemplate = mongoTemplate;
     }
 
     @Override
@@ -79,6 +91,8 @@ public class QuizServiceImpl implements QuizService {
         // TODO: Add validation, e.g., only one quiz per module
         Quiz quiz = convertToEntity(quizDTO);
         Quiz savedQuiz = quizRepository.save(quiz);
+        moduleStructureCache.evict(savedQuiz.getModuleId());
+        moduleService.invalidateCatalog();
         return convertToDTO(savedQuiz);
     }
 
@@ -88,8 +102,12 @@ public class QuizServiceImpl implements QuizService {
         Optional<Quiz> existingQuiz = quizRepository.findById(id);
         if (existingQuiz.isPresent()) {
             Quiz quizToUpdate = existingQuiz.get();
+            String previousModuleId = quizToUpdate.getModuleId();
             updateQuizFromDTO(quizToUpdate, quizDTO);
             Quiz updatedQuiz = quizRepository.save(quizToUpdate);
+            moduleStructureCache.evict(previousModuleId);
+            moduleStructureCache.evict(updatedQuiz.getModuleId());
+            moduleService.invalidateCatalog();
             return convertToDTO(updatedQuiz);
         } else {
             throw new RuntimeException("Quiz not found with id: " + id);
@@ -99,7 +117,9 @@ public class QuizServiceImpl implements QuizService {
     @Override
     @Transactional
     public void deleteQuiz(String id) {
+        quizRepository.findById(id).ifPresent(quiz -> moduleStructureCache.evict(quiz.getModuleId()));
         quizRepository.deleteById(id);
+        moduleService.invalidateCatalog();
     }
 
     @Override
@@ -150,118 +170,69 @@ public class QuizServiceImpl implements QuizService {
             }
             userQuiz.setScore(percentageScore);
             userQuiz.setCompleted(true);
-            userQuiz.setCompletedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+            userQuiz.setCompletedAt(Instant.now());
         } else {
             userQuiz = new UserQuiz();
             userQuiz.setUserId(userId);
             userQuiz.setQuizId(submissionDTO.getQuizId());
             userQuiz.setScore(percentageScore);
             userQuiz.setCompleted(true);
-            userQuiz.setCompletedAt(LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+            userQuiz.setCompletedAt(Instant.now());
         }
 
         userQuizRepository.save(userQuiz);
 
         // 4. Update UserProgress for the module
-        UserProgress userProgress = userProgressRepository.findByUserIdAndModuleId(userId, quiz.getModuleId())
-                .orElse(new UserProgress(userId, quiz.getModuleId(), "NOT_STARTED", 0));
-
-        userProgress.setQuizCompleted(true); // Mark quiz as completed in UserProgress
-
-        // Recalculate overall completion percentage for the module
-        Module module = moduleRepository.findById(quiz.getModuleId())
+        ModuleStructure module = moduleStructureCache.get(quiz.getModuleId())
                 .orElseThrow(() -> new RuntimeException("Module not found with id: " + quiz.getModuleId()));
-
-        int totalSections = module.getSubModules().size() + 1; // +1 for the quiz
-        int completedSections = userProgress.getCompletedSubModuleIds().size()
-                + (userProgress.isQuizCompleted() ? 1 : 0);
-
-        int completionPercentage = totalSections > 0 ? (completedSections * 100) / totalSections : 0;
-
-        userProgress.setCompletionPercentage(completionPercentage);
-        userProgress.setLastAccessedAt(LocalDateTime.now());
-
-        // Update module status if completed
-        if (completionPercentage == 100) {
-            userProgress.setStatus("COMPLETED");
-            userProgress.setCompletedAt(LocalDateTime.now());
-            // Check and award module completion badges
-            checkAndAwardModuleCompletionBadges(userId, module.getId(), userProgress.getStatus());
-        } else if (completionPercentage > 0) {
-            userProgress.setStatus("IN_PROGRESS");
-        } else {
-            userProgress.setStatus("NOT_STARTED");
+        int totalSections = module.getSubModuleCount() + 1; // +1 for the quiz
+
+        // Mark the quiz as completed and recompute the module's percentage and
+        // status on the server, leaving the rest of the entry untouched
+        LocalDateTime now = LocalDateTime.now();
+        UserProgress previous = markQuizCompleted(userId, quiz.getModuleId(), totalSections, now);
+        String previousStatus = previous != null ? previous.getStatus() : null;
+        int previousPercentage = previous != null ? previous.getCompletionPercentage() : 0;
+
+        // Same formula as the server-side update, applied to the entry before it
+        int completedSections = (previous != null ? previous.getCompletedSubModuleIds().size() : 0) + 1;
+        int completionPercentage = (completedSections * 100) / totalSections;
+        String status = ProgressUpdates.statusFor(completionPercentage);
+
+        leaderboardService.applyProgressChange(userId, module.getId(), module.isMandatory(), previousStatus,
+                status, percentageScore);
+        traineeSummaryService.applyProgressChange(userId, previousStatus, previousPercentage, status,
+                completionPercentage, now);
+        traineeSummaryService.applyQuizCompletion(userId, percentageScore, now);
+
+        // Check and award module completion badges once the progress is stored
+        if ("COMPLETED".equals(status) && !"COMPLETED".equals(previousStatus)) {
+            badgePipeline.publishModuleCompletions(userId, List.of(module.getId()));
         }
 
-        userProgressRepository.save(userProgress);
-
         // Check for Perfect Quiz Score badge
         if (score > 0 && score == maxScore) { // Check if the score is equal to the max score (all correct)
-            userRepository.findById(userId).ifPresent(user -> {
-                String perfectScoreBadgeId = "perfect-quiz-score";
-                if (!user.getEarnedAchievementIds().contains(perfectScoreBadgeId)) {
-                    user.getEarnedAchievementIds().add(perfectScoreBadgeId);
-                    user.setBadgesEarnedCount(user.getBadgesEarnedCount() + 1);
-                    userRepository.save(user);
-                    // TODO: Potentially log badge earning or send a notification
-                }
-            });
+            badgePipeline.publishPerfectQuizScore(userId, quiz.getId());
         }
 
         return percentageScore;
     }
 
-    private void checkAndAwardModuleCompletionBadges(String userId, String moduleId, String moduleStatus) {
-        if ("COMPLETED".equals(moduleStatus)) {
-            // Check for Mandatory Modules Completion badge
-            Set<String> mandatoryModuleIds = moduleRepository.findByIsMandatoryTrue().stream()
-                    .map(module -> module.getId())
-                    .collect(Collectors.toSet());
-
-            Set<String> userCompletedModuleIds = userProgressRepository.findByUserId(userId).stream()
-                    .filter(progress -> "COMPLETED".equals(progress.getStatus()))
-                    .map(UserProgress::getModuleId)
-                    .collect(Collectors.toSet());
-
-            boolean allMandatoryCompleted = userCompletedModuleIds.containsAll(mandatoryModuleIds);
-
-            if (allMandatoryCompleted) {
-                userRepository.findById(userId).ifPresent(user -> {
-                    String mandatoryBadgeId = "mandatory-completion";
-                    if (!user.getEarnedAchievementIds().contains(mandatoryBadgeId)) {
-                        user.getEarnedAchievementIds().add(mandatoryBadgeId);
-                        user.setBadgesEarnedCount(user.getBadgesEarnedCount() + 1);
-                        userRepository.save(user);
-                    }
-                });
-            }
-
-            // Check for Self Learned Modules Completion badge
-            if (!moduleRepository.findById(moduleId).orElseThrow().isMandatory()) {
-                Set<String> nonMandatoryModuleIds = moduleRepository.findAll().stream()
-                        .filter(module -> !module.isMandatory())
-                        .map(module -> module.getId())
-                        .collect(Collectors.toSet());
-
-                Set<String> userCompletedNonMandatoryModuleIds = userProgressRepository.findByUserId(userId).stream()
-                        .filter(progress -> "COMPLETED".equals(progress.getStatus()))
-                        .map(UserProgress::getModuleId)
-                        .filter(nonMandatoryModuleIds::contains)
-                        .collect(Collectors.toSet());
-
-                int selfLearnedThreshold = 3;
-
-                if (userCompletedNonMandatoryModuleIds.size() >= selfLearnedThreshold) {
-                    userRepository.findById(userId).ifPresent(user -> {
-                        String selfLearnedBadgeId = "self-learned-completion";
-                        if (!user.getEarnedAchievementIds().contains(selfLearnedBadgeId)) {
-                            user.getEarnedAchievementIds().add(selfLearnedBadgeId);
-                            user.setBadgesEarnedCount(user.getBadgesEarnedCount() + 1);
-                            userRepository.save(user);
-                        }
-                    });
-                }
-            }
+    /**
+     * Sets quizCompleted on the user's progress entry for the module, creating
+     * the entry if needed, in a single findAndModify.
+     *
+     * @return the entry as it was before the update, or null if it was created
+     */
+    private UserProgress markQuizCompleted(String userId, String moduleId, int totalSections, LocalDateTime now) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("moduleId").is(moduleId));
+        FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(false);
+        AggregationUpdate update = ProgressUpdates.completion(List.of(), true, totalSections, true, now);
+        try {
+            return mongoTemplate.findAndModify(query, update, options, UserProgress.class);
+        } catch (DuplicateKeyException e) {
+            // Lost the insert race against a concurrent request, the entry exists now
+            return mongoTemplate.findAndModify(query, update, options, UserProgress.class);
         }
     }
 
@@ -6,8 +6,16 @@ import com.onboarding.dto.ModuleDTO;
 import com.onboarding.dto.TraineeStatsDto;
 import com.onboarding.model.*;
 import com.onboarding.repository.*;
+import com.onboarding.service.ApiTimestamps;
 import com.onboarding.service.TraineeService;
+import com.onboarding.service.TraineeSummaryService;
 import com.onboarding.service.UserProgressService;
+import com.onboarding.service.cache.ModuleStructureCache;
+import com.onboarding.service.leaderboard.TopKSelector;
+import com.onboarding.service.leaderboard.TraineeScoringEngine;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -15,8 +23,11 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("onboarding.service")
 public class TraineeServiceImpl implements TraineeService {
 
+    private static final Logger log = LoggerFactory.getLogger(TraineeServiceImpl.class);
+
     private final UserRepository userRepository;
     private final UserProgressRepository userProgressRepository;
     private final QuizRepository quizRepository;
@@ -24,10 +35,9 @@ public class TraineeServiceImpl implements TraineeService {
     private final ModuleRepository moduleRepository;
     private final AchievementRepository achievementRepository;
     private final UserProgressService userProgressService;
-
-    // Constants for scoring
-    private static final int POINTS_PER_COMPLETED_MODULE = 50;
-    private static final int MAX_QUIZ_POINTS = 50;
+    private final TraineeScoringEngine traineeScoringEngine;
+    private final ModuleStructureCache moduleStructureCache;
+    private final TraineeSummaryService traineeSummaryService;
 
     @Autowired
     public TraineeServiceImpl(
@@ -37,7 +47,10 @@ public class TraineeServiceImpl implements TraineeService {
             UserQuizRepository userQuizRepository,
             ModuleRepository moduleRepository,
             AchievementRepository achievementRepository,
-            UserProgressService userProgressService) {
+            UserProgressService userProgressService,
+            TraineeScoringEngine traineeScoringEngine,
+            ModuleStructureCache moduleStructureCache,
+            TraineeSummaryService traineeSummaryService) {
         this.userRepository = userRepository;
         this.userProgressRepository = userProgressRepository;
         this.quizRepository = quizRepository;
@@ -45,6 +58,9 @@ public class TraineeServiceImpl implements TraineeService {
         this.moduleRepository = moduleRepository;
         this.achievementRepository = achievementRepository;
         this.userProgressService = userProgressService;
+        this.traineeScoringEngine = traineeScoringEngine;
+        this.moduleStructureCache = moduleStructureCache;
+        this.traineeSummaryService = traineeSummaryService;
     }
 
     @Override
@@ -60,73 +76,33 @@ public class TraineeServiceImpl implements TraineeService {
 
         User trainee = userOptional.get();
 
-        // Log user's name to check if it's being retrieved correctly
-        System.out.println("Fetching stats for user: " + trainee.getFirstName() + " " + trainee.getLastName());
-
-        // Get badges earned count from User entity
-        int badgesEarned = trainee.getBadgesEarnedCount();
-        System.out.println("Badges Earned: " + badgesEarned);
+        TraineeSummary summary = traineeSummaryService.getSummary(userId);
 
         // Count total modules (assuming all modules are relevant for a trainee's
         // overall stats context)
-        long totalModules = moduleRepository.count();
-        System.out.println("Total Modules: " + totalModules);
-
-        // Count completed modules from UserProgress
-        long completedModules = userProgressRepository.countByUserIdAndStatus(userId, "COMPLETED");
-        System.out.println("Completed Modules: " + completedModules);
+        int totalModules = moduleStructureCache.getAll().size();
+        int completedModules = summary.getCompletedModules();
+        int inProgressModules = summary.getInProgressModules();
 
         // Calculate overall progress as percentage of completed modules out of total
         // modules
-        int overallProgress = (int) (totalModules > 0 ? (completedModules * 100 / totalModules) : 0);
-
-        // Count completed quizzes
-        long completedQuizzes = userQuizRepository.countByUserIdAndCompleted(userId, true);
-        System.out.println("Completed Quizzes (Assessments): " + completedQuizzes);
+        int overallProgress = totalModules > 0 ? (completedModules * 100 / totalModules) : 0;
 
         // For total badges, we'll use a placeholder for now until we define badges more
         // formally
         // Or this could be the total count of 'achievement' types that grant badges
         int totalBadges = 12; // Placeholder value
 
-        // Fetch all modules
-        List<com.onboarding.model.Module> allModules = moduleRepository.findAll();
-
-        // Fetch user's progress for all modules
-        List<UserProgress> userProgress = userProgressRepository.findByUserId(userId);
-
-        // Create a map of module progress for quick lookup
-        Map<String, UserProgress> progressMap = userProgress.stream()
-                .collect(Collectors.toMap(UserProgress::getModuleId, progress -> progress,
-                        (existing, replacement) -> existing)); // Handle duplicate keys
-
-        // Calculate module counts by status
-        long completedModulesCount = allModules.stream()
-                .filter(module -> {
-                    UserProgress progress = progressMap.get(module.getId());
-                    return progress != null && "COMPLETED".equals(progress.getStatus());
-                })
-                .count();
-
-        long inProgressModulesCount = allModules.stream()
-                .filter(module -> {
-                    UserProgress progress = progressMap.get(module.getId());
-                    return progress != null && "IN_PROGRESS".equals(progress.getStatus());
-                })
-                .count();
-
-        long notStartedModulesCount = allModules.size() - completedModulesCount - inProgressModulesCount;
-
         // Include the user's name and module counts in the DTO
         return new TraineeStatsDto(
                 trainee.getFirstName() + " " + trainee.getLastName(),
                 overallProgress,
-                badgesEarned,
+                summary.getBadgesEarned(),
                 totalBadges,
-                (int) completedQuizzes,
-                (int) completedModulesCount,
-                (int) inProgressModulesCount,
-                (int) notStartedModulesCount);
+                summary.getCompletedQuizzes(),
+                completedModules,
+                inProgressModules,
+                Math.max(0, totalModules - completedModules - inProgressModules));
     }
 
     @Override
@@ -159,79 +135,34 @@ public class TraineeServiceImpl implements TraineeService {
 
     @Override
     public List<LeaderboardEntryDto> getLeaderboardData() {
+        return getLeaderboardData(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<LeaderboardEntryDto> getLeaderboardData(int limit) {
         // Get all trainees (users with role TRAINEE)
         List<User> trainees = userRepository.findByRole("TRAINEE");
 
-        // Get all mandatory modules
-        List<com.onboarding.model.Module> mandatoryModules = moduleRepository.findByIsMandatoryTrue();
-
-        // Calculate scores for each trainee
-        List<LeaderboardEntryDto> leaderboardEntries = trainees.stream()
-                .map(trainee -> calculateTraineeScore(trainee, mandatoryModules))
-                .filter(Objects::nonNull)
-                .sorted(Comparator.comparingInt(LeaderboardEntryDto::getPoints).reversed())
+        // Points of every user, computed in one pass over progress and quiz results
+        Map<String, Integer> points = traineeScoringEngine.computePoints();
+
+        // Keep only the best trainees in a bounded heap, entries are built for those alone
+        Comparator<User> byPoints = Comparator
+                .comparingInt((User trainee) -> points.getOrDefault(trainee.getId(), 0)).reversed()
+                .thenComparing(User::getId);
+        return TopKSelector.select(trainees, limit, byPoints).stream()
+                .map(trainee -> new LeaderboardEntryDto(
+                        trainee.getId(),
+                        trainee.getFirstName() + " " + trainee.getLastName(),
+                        trainee.getAvatar(),
+                        points.getOrDefault(trainee.getId(), 0)))
                 .collect(Collectors.toList());
-
-        return leaderboardEntries;
-    }
-
-    private LeaderboardEntryDto calculateTraineeScore(User trainee,
-            List<com.onboarding.model.Module> mandatoryModules) {
-        String userId = trainee.getId();
-
-        // Get all progress entries for this trainee
-        List<UserProgress> progressEntries = userProgressRepository.findByUserId(userId);
-        Map<String, UserProgress> progressMap = progressEntries.stream()
-                .collect(Collectors.toMap(UserProgress::getModuleId, progress -> progress));
-
-        // Get all quiz entries for this trainee
-        List<UserQuiz> userQuizEntries = userQuizRepository.findByUserId(userId);
-        Map<String, UserQuiz> quizMap = userQuizEntries.stream()
-                .collect(Collectors.toMap(UserQuiz::getQuizId, quiz -> quiz));
-
-        // Get all modules and their quizzes
-        List<com.onboarding.model.Module> allModules = moduleRepository.findAll();
-        Map<String, Quiz> moduleQuizMap = quizRepository.findAll().stream()
-                .collect(Collectors.toMap(Quiz::getModuleId, quiz -> quiz));
-
-        int totalPoints = 0;
-
-        for (com.onboarding.model.Module module : allModules) {
-            String moduleId = module.getId();
-            UserProgress progress = progressMap.get(moduleId);
-
-            // Skip if module is not mandatory or self-learned
-            if (!"MANDATORY".equals(module.getCompletionMode()) && !"SELF_LEARNED".equals(module.getCompletionMode())) {
-                continue;
-            }
-
-            // Add points for completed module
-            if (progress != null && "COMPLETED".equals(progress.getStatus())) {
-                totalPoints += POINTS_PER_COMPLETED_MODULE;
-            }
-
-            // Add points for completed quiz
-            Quiz moduleQuiz = moduleQuizMap.get(moduleId);
-            if (moduleQuiz != null) {
-                UserQuiz userQuiz = quizMap.get(moduleQuiz.getId());
-                if (userQuiz != null && userQuiz.isCompleted()) {
-                    double scorePercentage = (double) userQuiz.getScore() / userQuiz.getMaxScore();
-                    totalPoints += (int) (MAX_QUIZ_POINTS * scorePercentage);
-                }
-            }
-        }
-
-        return new LeaderboardEntryDto(
-                trainee.getId(),
-                trainee.getFirstName() + " " + trainee.getLastName(),
-                trainee.getAvatar(),
-                totalPoints);
     }
 
     @Override
     public List<ModuleDTO> getTraineeModules(String userId) {
         // Get all modules
-        List<com.onboarding.model.Module> allModules = moduleRepository.findAll();
+        List<com.onboarding.model.Module> allModules = moduleRepository.findAllSummaries();
 
         // Get user's progress for all modules
         List<UserProgress> userProgress = userProgressRepository.findByUserId(userId);
@@ -275,17 +206,11 @@ public class TraineeServiceImpl implements TraineeService {
                     // Add user progress information
                     UserProgress progress = progressMap.get(module.getId());
 
-                    // Add log to check UserProgress and completionPercentage
-                    System.out.println("Processing module: " + module.getId() + ", UserProgress found: "
-                            + (progress != null) + ", Completion Percentage in UserProgress: "
-                            + (progress != null ? progress.getCompletionPercentage() : "N/A"));
-
                     if (progress != null) {
                         dto.setUserProgressId(progress.getId());
                         dto.setCompletionPercentage(progress.getCompletionPercentage()); // Set completion percentage
                         dto.setStatus(progress.getStatus() != null ? progress.getStatus() : "");
-                        dto.setLastAccessedAt(
-                                progress.getLastAccessedAt() != null ? progress.getLastAccessedAt().toString() : null);
+                        dto.setLastAccessedAt(ApiTimestamps.format(progress.getLastAccessedAt()));
                     } else {
                         // Default values if no user progress entry exists
                         dto.setUserProgressId(null);
@@ -361,16 +286,10 @@ public class TraineeServiceImpl implements TraineeService {
         finalModuleDTOs.add(introDto);
         finalModuleDTOs.addAll(moduleDTOs);
 
-        // Add log to check the final list of ModuleDTOs
-        System.out.println("Returning ModuleDTOs:");
-        allModules.stream().forEach(module -> {
-            ModuleDTO dto = new ModuleDTO(); // Need to recreate DTO as stream is consumed
-            UserProgress progress = progressMap.get(module.getId());
-            String completionPercentage = (progress != null) ? String.valueOf(progress.getCompletionPercentage())
-                    : "N/A";
-            System.out
-                    .println("  Module: " + module.getId() + ", Completion Percentage in DTO: " + completionPercentage);
-        });
+        if (log.isDebugEnabled()) {
+            log.debug("Returning {} modules for trainee {}, {} with progress", finalModuleDTOs.size(), userId,
+                    progressMap.size());
+        }
 
         return finalModuleDTOs;
     }
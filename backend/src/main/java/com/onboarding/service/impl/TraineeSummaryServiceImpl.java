@@ -0,0 +1,347 @@
+package com.onboarding.service.impl;
+
+import com.onboarding.model.TraineeSummary;
+import com.onboarding.model.User;
+import com.onboarding.model.UserProgress;
+import com.onboarding.model.UserQuiz;
+import com.onboarding.service.TraineeSummaryService;
+import com.onboarding.service.cache.ModuleStructure;
+import com.onboarding.service.cache.ModuleStructureCache;
+import io.micrometer.core.annotation.Timed;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps one {@link TraineeSummary} per trainee in step with progress, quiz and
+ * badge writes.
+ * <p>
+ * MongoDB transactions need a replica set and this application has no
+ * transaction manager, so each change is applied as one atomic increment
+ * right after the write it describes, like the leaderboard. Increments only
+ * touch existing summaries: missing summaries are built from their users'
+ * entries on first read, with one query per collection for all of them. Every
+ * summary is rebuilt when the collection is empty at startup, on request and
+ * nightly, which also corrects any drift.
+ * <p>
+ * Every change also increments the summary's revision, and a rebuild only
+ * replaces a summary whose revision is still the one it saw before reading the
+ * entries, so changes applied during a rebuild are never lost. Summaries that
+ * changed meanwhile are rebuilt once more right after.
+ */
+@Service
+@Timed("onboarding.service")
+public class TraineeSummaryServiceImpl implements TraineeSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(TraineeSummaryServiceImpl.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ModuleStructureCache moduleStructureCache;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    @Autowired
+    public TraineeSummaryServiceImpl(MongoTemplate mongoTemplate, ModuleStructureCache moduleStructureCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.moduleStructureCache = moduleStructureCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeSummaries() {
+        try {
+            if (mongoTemplate.estimatedCount(TraineeSummary.class) == 0) {
+                rebuildAll();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Trainee summary initialization skipped: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public TraineeSummary getSummary(String userId) {
+        TraineeSummary summary = mongoTemplate.findById(userId, TraineeSummary.class);
+        return summary != null ? summary : rebuild(List.of(userId)).get(userId);
+    }
+
+    @Override
+    public Map<String, TraineeSummary> getSummaries(Collection<String> userIds) {
+        Map<String, TraineeSummary> summaries = mongoTemplate
+                .find(new Query(Criteria.where("id").in(userIds)), TraineeSummary.class).stream()
+                .collect(Collectors.toMap(TraineeSummary::getId, summary -> summary));
+        List<String> missing = userIds.stream()
+                .filter(userId -> !summaries.containsKey(userId))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            summaries.putAll(rebuild(missing));
+        }
+        return summaries;
+    }
+
+    @Override
+    public void applyProgressChange(String userId, String previousStatus, int previousPercentage, String newStatus,
+            int newPercentage, LocalDateTime accessedAt) {
+        Update update = new Update().max("lastActivity", accessedAt).inc("revision", 1);
+        String previousCounter = previousStatus != null ? statusCounter(previousStatus) : null;
+        String newCounter = statusCounter(newStatus);
+        if (previousStatus == null) {
+            update.inc("progressEntries", 1);
+        }
+        if (!newCounter.equals(previousCounter)) {
+            if (previousCounter != null) {
+                update.inc(previousCounter, -1);
+            }
+            update.inc(newCounter, 1);
+        }
+        if (newPercentage != previousPercentage) {
+            update.inc("completionPercentageTotal", newPercentage - previousPercentage);
+        }
+        mongoTemplate.updateFirst(summaryQuery(userId), update, TraineeSummary.class);
+    }
+
+    @Override
+    public void applyActivity(Map<String, LocalDateTime> lastAccessByUser) {
+        if (lastAccessByUser.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                TraineeSummary.class);
+        lastAccessByUser.forEach((userId, accessedAt) -> bulkOperations.updateOne(summaryQuery(userId),
+                new Update().max("lastActivity", accessedAt).inc("revision", 1)));
+        bulkOperations.execute();
+    }
+
+    @Override
+    public void applyQuizCompletion(String userId, int score, LocalDateTime completedAt) {
+        Update update = new Update()
+                .inc("completedQuizzes", 1)
+                .inc("quizScoreTotal", score)
+                .max("lastActivity", completedAt)
+                .inc("revision", 1);
+        mongoTemplate.updateFirst(summaryQuery(userId), update, TraineeSummary.class);
+    }
+
+    @Override
+    public void applyBadgeAwarded(String userId) {
+        mongoTemplate.updateFirst(summaryQuery(userId), new Update().inc("badgesEarned", 1).inc("revision", 1),
+                TraineeSummary.class);
+    }
+
+    @Override
+    public void requestRebuild() {
+        rebuildRequested.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${summaries.rebuild.check-interval-ms:60000}")
+    public void rebuildIfRequested() {
+        if (rebuildRequested.getAndSet(false)) {
+            runScheduledRebuild();
+        }
+    }
+
+    @Scheduled(cron = "${summaries.rebuild.cron:0 45 3 * * *}")
+    public void rebuildNightly() {
+        runScheduledRebuild();
+    }
+
+    private void runScheduledRebuild() {
+        try {
+            rebuildAll();
+        } catch (DataAccessException e) {
+            rebuildRequested.set(true);
+            log.warn("Trainee summary rebuild failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute every trainee's summary from progress, quiz and user documents,
+     * streaming each collection once.
+     */
+    public synchronized void rebuildAll() {
+        // Dates are stored with millisecond precision, truncate so the stored value compares equal
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<String, Long> revisions = readRevisions(new Query());
+        Map<String, TraineeSummary> summaries = new HashMap<>();
+        Query trainees = new Query(Criteria.where("role").is("TRAINEE"));
+        trainees.fields().include("badgesEarnedCount");
+        try (Stream<User> users = mongoTemplate.stream(trainees, User.class)) {
+            users.forEach(user -> summaries.put(user.getId(), newSummary(user.getId(),
+                    user.getBadgesEarnedCount(), now)));
+        }
+        collectProgress(new Query(), progress -> {
+            TraineeSummary summary = summaries.get(progress.getUserId());
+            if (summary != null) {
+                addProgress(summary, progress);
+            }
+        });
+        collectQuizzes(new Query(Criteria.where("completed").is(true)), quiz -> {
+            TraineeSummary summary = summaries.get(quiz.getUserId());
+            if (summary != null) {
+                addQuiz(summary, quiz);
+            }
+        });
+
+        store(summaries.values(), revisions);
+        // Summaries of users that are no longer trainees
+        mongoTemplate.remove(new Query(Criteria.where("id").nin(summaries.keySet())), TraineeSummary.class);
+
+        // Summaries that changed while the entries were read were not replaced
+        Query skipped = new Query(Criteria.where("lastRebuiltAt").lt(now));
+        skipped.fields().include("id");
+        List<String> changed = mongoTemplate.find(skipped, TraineeSummary.class).stream()
+                .map(TraineeSummary::getId)
+                .toList();
+        if (!changed.isEmpty()) {
+            rebuild(changed);
+        }
+        log.debug("Rebuilt {} trainee summaries, {} changed during the rebuild", summaries.size(), changed.size());
+    }
+
+    /**
+     * Recompute the summaries of some users with one query per collection.
+     *
+     * @return the summary of every requested user; only those of existing users are stored
+     */
+    private Map<String, TraineeSummary> rebuild(Collection<String> userIds) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Map<String, Long> revisions = readRevisions(new Query(Criteria.where("id").in(userIds)));
+        Map<String, TraineeSummary> summaries = new HashMap<>();
+        userIds.forEach(userId -> summaries.put(userId, newSummary(userId, 0, now)));
+
+        Query userQuery = new Query(Criteria.where("id").in(userIds));
+        userQuery.fields().include("badgesEarnedCount");
+        List<TraineeSummary> existingUsers = new ArrayList<>();
+        for (User user : mongoTemplate.find(userQuery, User.class)) {
+            TraineeSummary summary = summaries.get(user.getId());
+            summary.setBadgesEarned(user.getBadgesEarnedCount());
+            existingUsers.add(summary);
+        }
+        collectProgress(new Query(Criteria.where("userId").in(userIds)),
+                progress -> addProgress(summaries.get(progress.getUserId()), progress));
+        collectQuizzes(new Query(Criteria.where("userId").in(userIds).and("completed").is(true)),
+                quiz -> addQuiz(summaries.get(quiz.getUserId()), quiz));
+
+        store(existingUsers, revisions);
+        return summaries;
+    }
+
+    // Stored summaries and their revisions, read before the entries they are rebuilt from
+    private Map<String, Long> readRevisions(Query query) {
+        query.fields().include("id", "revision");
+        Map<String, Long> revisions = new HashMap<>();
+        try (Stream<TraineeSummary> summaries = mongoTemplate.stream(query, TraineeSummary.class)) {
+            summaries.forEach(summary -> revisions.put(summary.getId(), summary.getRevision()));
+        }
+        return revisions;
+    }
+
+    /**
+     * Replaces stored summaries whose revision has not changed since it was read,
+     * and inserts summaries that did not exist unless one was created meanwhile.
+     */
+    private void store(Collection<TraineeSummary> summaries, Map<String, Long> revisions) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                TraineeSummary.class);
+        for (TraineeSummary summary : summaries) {
+            Long revision = revisions.get(summary.getId());
+            if (revision != null) {
+                summary.setRevision(revision + 1);
+                // Summaries written before revisions existed read as revision 0
+                Criteria unchanged = revision == 0 ? Criteria.where("revision").in(0, null)
+                        : Criteria.where("revision").is(revision);
+                bulkOperations.replaceOne(summaryQuery(summary.getId()).addCriteria(unchanged), summary);
+            } else {
+                Document document = new Document();
+                mongoTemplate.getConverter().write(summary, document);
+                document.remove("_id");
+                Update insert = new Update();
+                document.forEach(insert::setOnInsert);
+                bulkOperations.upsert(summaryQuery(summary.getId()), insert);
+            }
+        }
+        bulkOperations.execute();
+    }
+
+    private void collectProgress(Query query, Consumer<UserProgress> consumer) {
+        // Entries of deleted modules no longer count
+        Set<String> moduleIds = moduleStructureCache.getAll().stream()
+                .map(ModuleStructure::getId)
+                .collect(Collectors.toSet());
+        query.fields().include("userId", "moduleId", "status", "completionPercentage", "lastAccessedAt");
+        try (Stream<UserProgress> progress = mongoTemplate.stream(query, UserProgress.class)) {
+            progress.filter(entry -> moduleIds.contains(entry.getModuleId())).forEach(consumer);
+        }
+    }
+
+    private void collectQuizzes(Query query, Consumer<UserQuiz> consumer) {
+        query.fields().include("userId", "score");
+        try (Stream<UserQuiz> quizzes = mongoTemplate.stream(query, UserQuiz.class)) {
+            quizzes.forEach(consumer);
+        }
+    }
+
+    private static TraineeSummary newSummary(String userId, int badgesEarned, LocalDateTime now) {
+        TraineeSummary summary = new TraineeSummary();
+        summary.setId(userId);
+        summary.setBadgesEarned(badgesEarned);
+        summary.setLastRebuiltAt(now);
+        return summary;
+    }
+
+    private static void addProgress(TraineeSummary summary, UserProgress progress) {
+        summary.setProgressEntries(summary.getProgressEntries() + 1);
+        summary.setCompletionPercentageTotal(summary.getCompletionPercentageTotal()
+                + progress.getCompletionPercentage());
+        switch (statusCounter(progress.getStatus())) {
+            case "completedModules" -> summary.setCompletedModules(summary.getCompletedModules() + 1);
+            case "inProgressModules" -> summary.setInProgressModules(summary.getInProgressModules() + 1);
+            default -> summary.setNotStartedModules(summary.getNotStartedModules() + 1);
+        }
+        LocalDateTime accessedAt = progress.getLastAccessedAt();
+        if (accessedAt != null && (summary.getLastActivity() == null || accessedAt.isAfter(summary.getLastActivity()))) {
+            summary.setLastActivity(accessedAt);
+        }
+    }
+
+    private static void addQuiz(TraineeSummary summary, UserQuiz quiz) {
+        summary.setCompletedQuizzes(summary.getCompletedQuizzes() + 1);
+        summary.setQuizScoreTotal(summary.getQuizScoreTotal() + quiz.getScore());
+    }
+
+    private static String statusCounter(String status) {
+        if ("COMPLETED".equals(status)) {
+            return "completedModules";
+        }
+        return "IN_PROGRESS".equals(status) ? "inProgressModules" : "notStartedModules";
+    }
+
+    private static Query summaryQuery(String userId) {
+        return new Query(Criteria.where("id").is(userId));
+    }
+}
@@ -1,297 +1,252 @@
 package com.onboarding.service.impl;
 
+import com.onboarding.dto.SubModuleCompletionDTO;
 import com.onboarding.dto.UserModuleProgressDto;
 import com.onboarding.dto.UserSubModuleProgressDto;
-import com.onboarding.model.UserModuleProgress;
-import com.onboarding.model.UserSubModuleProgress;
-import com.onboarding.model.User;
-import com.onboarding.model.Module;
-import com.onboarding.model.SubModule;
+import com.onboarding.model.SubModuleProgress;
 import com.onboarding.model.UserProgress;
-import com.onboarding.repository.UserModuleProgressRepository;
-import com.onboarding.repository.UserSubModuleProgressRepository;
+import com.onboarding.repository.UserProgressRepository;
 import com.onboarding.repository.UserRepository;
-import com.onboarding.repository.ModuleRepository;
-import com.onboarding.repository.SubModuleRepository;
+import com.onboarding.service.ProgressService;
+import com.onboarding.service.TraineeSummaryService;
 import com.onboarding.service.UserProgressService;
-import com.onboarding.repository.UserProgressRepository;
+import com.onboarding.service.cache.ModuleStructure;
+import com.onboarding.service.cache.ModuleStructureCache;
+import com.onboarding.service.progress.ProgressHeartbeatBuffer;
+import com.onboarding.service.progress.ProgressUpdates;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+/**
+ * Module and submodule progress, both read from the single {@code user_progress}
+ * entry per user and module. Submodule positions are embedded in that entry, so
+ * no read resolves a user, module or submodule reference.
+ */
 @Service
+@Timed("onboarding.service")
 public class UserProgressServiceImpl implements UserProgressService {
 
-    private final UserModuleProgressRepository userModuleProgressRepository;
-    private final UserSubModuleProgressRepository userSubModuleProgressRepository;
+    private final MongoTemplate mongoTemplate;
     private final UserRepository userRepository;
-    private final ModuleRepository moduleRepository;
-    private final SubModuleRepository subModuleRepository;
     private final UserProgressRepository userProgressRepository;
+    private final ModuleStructureCache moduleStructureCache;
+    private final ProgressHeartbeatBuffer progressHeartbeatBuffer;
+    private final ProgressService progressService;
+    private final TraineeSummaryService traineeSummaryService;
 
     @Autowired
     public UserProgressServiceImpl(
-            UserModuleProgressRepository userModuleProgressRepository,
-            UserSubModuleProgressRepository userSubModuleProgressRepository,
+            MongoTemplate mongoTemplate,
             UserRepository userRepository,
-            ModuleRepository moduleRepository,
-            SubModuleRepository subModuleRepository,
-            UserProgressRepository userProgressRepository) {
-        this.userModuleProgressRepository = userModuleProgressRepository;
-        this.userSubModuleProgressRepository = userSubModuleProgressRepository;
+            UserProgressRepository userProgressRepository,
+            ModuleStructureCache moduleStructureCache,
+            ProgressHeartbeatBuffer progressHeartbeatBuffer,
+            ProgressService progressService,
+            TraineeSummaryService traineeSummaryService) {
+        this.mongoTemplate = mongoTemplate;
         this.userRepository = userRepository;
-        this.moduleRepository = moduleRepository;
-        this.subModuleRepository = subModuleRepository;
         this.userProgressRepository = userProgressRepository;
+        this.moduleStructureCache = moduleStructureCache;
+        this.progressHeartbeatBuffer = progressHeartbeatBuffer;
+        this.progressService = progressService;
+        this.traineeSummaryService = traineeSummaryService;
     }
 
     @Override
     public UserModuleProgressDto getUserModuleProgress(String userId, String moduleId) {
-        Optional<UserModuleProgress> progress = userModuleProgressRepository.findByUser_IdAndModule_Id(userId,
-                moduleId);
-        return progress.map(this::convertToDto).orElse(null);
+        Query query = entryQuery(userId, moduleId);
+        query.fields().exclude("subModules", "completedSubModuleIds");
+        return Optional.ofNullable(mongoTemplate.findOne(query, UserProgress.class))
+                .map(this::convertToDto)
+                .orElse(null);
     }
 
     @Override
     public UserSubModuleProgressDto getUserSubModuleProgress(String userId, String submoduleId) {
-        Optional<UserSubModuleProgress> progress = userSubModuleProgressRepository.findByUser_IdAndSubModule_Id(userId,
-                submoduleId);
-        return progress.map(this::convertToDto).orElse(null);
+        // Only the matching element of the embedded array is returned
+        Query query = new Query(Criteria.where("userId").is(userId).and("subModules.subModuleId").is(submoduleId));
+        query.fields().include("userId", "moduleId")
+                .elemMatch("subModules", Criteria.where("subModuleId").is(submoduleId));
+        UserProgress progress = mongoTemplate.findOne(query, UserProgress.class);
+        UserSubModuleProgressDto dto = progress != null && !progress.getSubModules().isEmpty()
+                ? convertToDto(progress, progress.getSubModules().get(0))
+                : null;
+
+        // Overlay a position that is still waiting in the heartbeat buffer
+        Optional<ProgressHeartbeatBuffer.Heartbeat> pending = progressHeartbeatBuffer.getPending(userId, submoduleId);
+        if (pending.isPresent()) {
+            if (dto == null) {
+                dto = new UserSubModuleProgressDto();
+                dto.setUserId(userId);
+                dto.setSubmoduleId(submoduleId);
+                dto.setStatus("In Progress");
+            }
+            dto.setVideoProgress(pending.get().videoProgress());
+            if (pending.get().contentProgress() != null) {
+                dto.setContentProgress(pending.get().contentProgress());
+            }
+            dto.setLastAccessedAt(pending.get().reportedAt());
+        }
+        return dto;
     }
 
     @Override
     public List<UserSubModuleProgressDto> getUserSubModuleProgressByModule(String userId, String moduleId) {
-        List<UserSubModuleProgress> progressList = userSubModuleProgressRepository
-                .findByUser_IdAndSubModule_Module_Id(userId, moduleId);
-        return progressList.stream()
-                .map(this::convertToDto)
+        Query query = entryQuery(userId, moduleId);
+        query.fields().include("userId", "moduleId", "subModules");
+        UserProgress progress = mongoTemplate.findOne(query, UserProgress.class);
+        if (progress == null) {
+            return List.of();
+        }
+        return progress.getSubModules().stream()
+                .map(state -> convertToDto(progress, state))
                 .collect(Collectors.toList());
     }
 
     @Override
     @Transactional
     public UserModuleProgressDto saveUserModuleProgress(UserModuleProgressDto progressDto) {
-        // Find existing progress or create a new one
-        UserModuleProgress progress = userModuleProgressRepository
-                .findByUser_IdAndModule_Id(progressDto.getUserId(), progressDto.getModuleId())
-                .orElse(new UserModuleProgress());
-
-        // Fetch User and Module entities
-        User user = userRepository.findById(progressDto.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Module module = moduleRepository.findById(progressDto.getModuleId())
-                .orElseThrow(() -> new RuntimeException("Module not found"));
-
-        // Update or set fields
-        progress.setUser(user);
-        progress.setModule(module);
-        progress.setCompletionPercentage(progressDto.getCompletionPercentage());
-        progress.setStatus(progressDto.getStatus());
-        progress.setLastAccessedAt(
-                progressDto.getLastAccessedAt() != null ? progressDto.getLastAccessedAt() : LocalDateTime.now());
-
-        // Set progressType for new entities (should be done in convertToEntity ideally,
-        // but doing here for clarity)
-        if (progress.getId() == null) {
-            progress.setProgressType("module");
+        String userId = progressDto.getUserId();
+        String moduleId = progressDto.getModuleId();
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
         }
-
-        // Save and convert back to DTO
-        UserModuleProgress savedProgress = userModuleProgressRepository.save(progress);
-        return convertToDto(savedProgress);
+        moduleStructureCache.get(moduleId).orElseThrow(() -> new RuntimeException("Module not found"));
+
+        // Status and percentage only change on the completion paths, which the
+        // leaderboard, badges and summaries follow, so only the access time is taken
+        LocalDateTime accessedAt = progressDto.getLastAccessedAt() != null ? progressDto.getLastAccessedAt()
+                : LocalDateTime.now();
+        Update update = new Update()
+                .max("lastAccessedAt", accessedAt)
+                .setOnInsert("status", "NOT_STARTED")
+                .setOnInsert("completionPercentage", 0)
+                .setOnInsert("completedSubModuleIds", List.of())
+                .setOnInsert("quizCompleted", false)
+                .setOnInsert("subModules", List.of());
+        boolean created = mongoTemplate.upsert(entryQuery(userId, moduleId), update, UserProgress.class)
+                .getUpsertedId() != null;
+        if (created) {
+            traineeSummaryService.applyProgressChange(userId, null, 0, "NOT_STARTED", 0, accessedAt);
+        } else {
+            traineeSummaryService.applyActivity(Map.of(userId, accessedAt));
+        }
+        return getUserModuleProgress(userId, moduleId);
     }
 
     @Override
     @Transactional
     public UserSubModuleProgressDto saveUserSubModuleProgress(UserSubModuleProgressDto progressDto) {
-        // Find existing progress or create a new one
-        UserSubModuleProgress progress = userSubModuleProgressRepository
-                .findByUser_IdAndSubModule_Id(progressDto.getUserId(), progressDto.getSubmoduleId())
-                .orElse(new UserSubModuleProgress());
+        // An explicit save supersedes any buffered position
+        progressHeartbeatBuffer.discard(progressDto.getUserId(), progressDto.getSubmoduleId());
 
-        // Fetch User and SubModule entities
-        User user = userRepository.findById(progressDto.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        SubModule subModule = subModuleRepository.findById(progressDto.getSubmoduleId())
+        if (!userRepository.existsById(progressDto.getUserId())) {
+            throw new RuntimeException("User not found");
+        }
+        String moduleId = moduleStructureCache.findModuleIdOf(progressDto.getSubmoduleId())
                 .orElseThrow(() -> new RuntimeException("SubModule not found"));
 
-        // Update or set fields
-        progress.setUser(user);
-        progress.setSubModule(subModule);
-        progress.setCompletionPercentage(progressDto.getCompletionPercentage());
-        progress.setStatus(progressDto.getStatus());
-        progress.setLastAccessedAt(
-                progressDto.getLastAccessedAt() != null ? progressDto.getLastAccessedAt() : LocalDateTime.now());
-        progress.setVideoProgress(progressDto.getVideoProgress());
-        progress.setContentProgress(progressDto.getContentProgress());
-
-        // Set progressType for new entities
-        if (progress.getId() == null) {
-            progress.setProgressType("submodule");
+        Map<String, Object> values = new HashMap<>();
+        values.put("completionPercentage", progressDto.getCompletionPercentage());
+        values.put("status", progressDto.getStatus());
+        values.put("videoProgress", progressDto.getVideoProgress());
+        values.put("contentProgress", progressDto.getContentProgress());
+        LocalDateTime accessedAt = progressDto.getLastAccessedAt() != null ? progressDto.getLastAccessedAt()
+                : LocalDateTime.now();
+
+        boolean created = mongoTemplate.upsert(entryQuery(progressDto.getUserId(), moduleId), new Update()
+                .setOnInsert("status", "NOT_STARTED")
+                .setOnInsert("completionPercentage", 0)
+                .setOnInsert("completedSubModuleIds", List.of())
+                .setOnInsert("quizCompleted", false), UserProgress.class).getUpsertedId() != null;
+        UserProgress saved = mongoTemplate.findAndModify(entryQuery(progressDto.getUserId(), moduleId),
+                ProgressUpdates.mergeSubModule(progressDto.getSubmoduleId(), values, Map.of(), accessedAt),
+                FindAndModifyOptions.options().returnNew(true), UserProgress.class);
+        if (created) {
+            traineeSummaryService.applyProgressChange(progressDto.getUserId(), null, 0, "NOT_STARTED", 0,
+                    accessedAt);
+        } else {
+            traineeSummaryService.applyActivity(Map.of(progressDto.getUserId(), accessedAt));
         }
+        return saved.getSubModules().stream()
+                .filter(state -> progressDto.getSubmoduleId().equals(state.getSubModuleId()))
+                .findFirst()
+                .map(state -> convertToDto(saved, state))
+                .orElse(null);
+    }
 
-        // Save and convert back to DTO
-        UserSubModuleProgress savedProgress = userSubModuleProgressRepository.save(progress);
-        return convertToDto(savedProgress);
+    @Override
+    public boolean recordSubModuleHeartbeat(UserSubModuleProgressDto progressDto) {
+        if (progressDto.getUserId() == null || progressDto.getSubmoduleId() == null) {
+            throw new IllegalArgumentException("userId and submoduleId are required");
+        }
+        String moduleId = moduleStructureCache.findModuleIdOf(progressDto.getSubmoduleId())
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "SubModule not found with id: " + progressDto.getSubmoduleId()));
+        return progressHeartbeatBuffer.record(new ProgressHeartbeatBuffer.Heartbeat(
+                progressDto.getUserId(),
+                moduleId,
+                progressDto.getSubmoduleId(),
+                progressDto.getVideoProgress(),
+                progressDto.getContentProgress(),
+                progressDto.getLastAccessedAt() != null ? progressDto.getLastAccessedAt() : LocalDateTime.now()));
     }
 
     @Override
-    @Transactional
     public void calculateAndSaveModuleProgress(String userId, String moduleId) {
-        // Fetch all submodule progress for the user and module
-        List<UserSubModuleProgress> submoduleProgressList = userSubModuleProgressRepository
-                .findByUser_IdAndSubModule_Module_Id(userId, moduleId);
-
-        if (submoduleProgressList.isEmpty()) {
-            // If no submodule progress, module progress is 0%
-            saveOrUpdateModuleProgress(userId, moduleId, 0, "Not Started");
+        Query query = entryQuery(userId, moduleId);
+        query.fields().include("subModules", "completedSubModuleIds");
+        UserProgress progress = mongoTemplate.findOne(query, UserProgress.class);
+        if (progress == null) {
             return;
         }
-
-        // Fetch the module to get the total number of submodules
-        Module module = moduleRepository.findById(moduleId)
-                .orElseThrow(() -> new RuntimeException("Module not found"));
-
-        int totalSubmodules = module.getSubModules() != null ? module.getSubModules().size() : 0;
-        int completedSubmodules = 0;
-        int totalPercentage = 0;
-
-        for (UserSubModuleProgress submoduleProgress : submoduleProgressList) {
-            if (submoduleProgress.getCompletionPercentage() == 100) {
-                completedSubmodules++;
-            }
-            totalPercentage += submoduleProgress.getCompletionPercentage();
-        }
-
-        int overallCompletionPercentage = 0;
-        String status = "Not Started";
-
-        if (totalSubmodules > 0) {
-            // Calculate overall percentage based on completed submodules (can adjust logic
-            // as needed)
-            overallCompletionPercentage = (int) Math.round(((double) completedSubmodules / totalSubmodules) * 100);
-
-            // Determine status
-            if (completedSubmodules == totalSubmodules) {
-                status = "Completed";
-            } else if (completedSubmodules > 0) {
-                status = "In Progress";
-            }
-        } else if (!submoduleProgressList.isEmpty()) {
-            // Edge case: module has no submodules but there's some progress data (shouldn't
-            // happen with current schema, but for safety)
-            overallCompletionPercentage = 100; // Or some default
-            status = "Completed"; // Or some default
-        }
-
-        // Save or update the main module progress
-        saveOrUpdateModuleProgress(userId, moduleId, overallCompletionPercentage, status);
-    }
-
-    // Helper method to save or update UserModuleProgress
-    private void saveOrUpdateModuleProgress(String userId, String moduleId, int completionPercentage, String status) {
-        UserModuleProgress moduleProgress = userModuleProgressRepository.findByUser_IdAndModule_Id(userId, moduleId)
-                .orElse(new UserModuleProgress());
-
-        // Fetch User and Module entities
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Module module = moduleRepository.findById(moduleId)
+        ModuleStructure module = moduleStructureCache.get(moduleId)
                 .orElseThrow(() -> new RuntimeException("Module not found"));
 
-        moduleProgress.setUser(user);
-        moduleProgress.setModule(module);
-        moduleProgress.setCompletionPercentage(completionPercentage);
-        moduleProgress.setStatus(status);
-        moduleProgress.setLastAccessedAt(LocalDateTime.now());
-        if (moduleProgress.getId() == null) {
-            moduleProgress.setProgressType("module");
+        // Module percentage and status follow completedSubModuleIds, so only
+        // submodules whose position reached 100% need to be completed
+        List<SubModuleCompletionDTO> completions = progress.getSubModules().stream()
+                .filter(state -> state.getCompletionPercentage() >= 100)
+                .map(SubModuleProgress::getSubModuleId)
+                .filter(module::containsSubModule)
+                .filter(subModuleId -> !progress.getCompletedSubModuleIds().contains(subModuleId))
+                .map(subModuleId -> new SubModuleCompletionDTO(userId, moduleId, subModuleId))
+                .collect(Collectors.toList());
+        if (!completions.isEmpty()) {
+            progressService.completeSubModules(completions);
         }
-        userModuleProgressRepository.save(moduleProgress);
-    }
-
-    // Helper method to convert UserModuleProgress entity to DTO
-    private UserModuleProgressDto convertToDto(UserModuleProgress entity) {
-        if (entity == null)
-            return null;
-        UserModuleProgressDto dto = new UserModuleProgressDto();
-        dto.setId(entity.getId());
-        dto.setUserId(entity.getUser() != null ? entity.getUser().getId() : null);
-        dto.setModuleId(entity.getModule() != null ? entity.getModule().getId() : null);
-        dto.setCompletionPercentage(entity.getCompletionPercentage());
-        dto.setStatus(entity.getStatus());
-        dto.setLastAccessedAt(entity.getLastAccessedAt());
-        return dto;
-    }
-
-    // Helper method to convert UserSubModuleProgress entity to DTO
-    private UserSubModuleProgressDto convertToDto(UserSubModuleProgress entity) {
-        if (entity == null)
-            return null;
-        UserSubModuleProgressDto dto = new UserSubModuleProgressDto();
-        dto.setId(entity.getId());
-        dto.setUserId(entity.getUser() != null ? entity.getUser().getId() : null);
-        dto.setSubmoduleId(entity.getSubModule() != null ? entity.getSubModule().getId() : null);
-        dto.setCompletionPercentage(entity.getCompletionPercentage());
-        dto.setStatus(entity.getStatus());
-        // dto.setLastAccessedAt(entity.getLastAccessedAt() != null ?
-        // entity.getLastAccessedAt().toString() : null);
-        dto.setLastAccessedAt(entity.getLastAccessedAt());
-        dto.setVideoProgress(entity.getVideoProgress());
-        dto.setContentProgress(entity.getContentProgress());
-        return dto;
-    }
-
-    // Helper method to convert UserModuleProgressDto to entity
-    private UserModuleProgress convertToEntity(UserModuleProgressDto dto) {
-        if (dto == null)
-            return null;
-        UserModuleProgress entity = new UserModuleProgress();
-        entity.setId(dto.getId());
-        // Need to fetch User and Module entities based on IDs in DTO
-        // entity.setUser(userRepository.findById(dto.getUserId()).orElse(null));
-        // entity.setModule(moduleRepository.findById(dto.getModuleId()).orElse(null));
-        entity.setCompletionPercentage(dto.getCompletionPercentage());
-        entity.setStatus(dto.getStatus());
-        entity.setLastAccessedAt(dto.getLastAccessedAt());
-        return entity;
-    }
-
-    // Helper method to convert UserSubModuleProgressDto to entity
-    private UserSubModuleProgress convertToEntity(UserSubModuleProgressDto dto) {
-        if (dto == null)
-            return null;
-        UserSubModuleProgress entity = new UserSubModuleProgress();
-        entity.setId(dto.getId());
-        // Need to fetch User and SubModule entities based on IDs in DTO
-        // entity.setUser(userRepository.findById(dto.getUserId()).orElse(null));
-        // entity.setSubModule(subModuleRepository.findById(dto.getSubmoduleId()).orElse(null));
-        entity.setCompletionPercentage(dto.getCompletionPercentage());
-        entity.setStatus(dto.getStatus());
-        entity.setLastAccessedAt(dto.getLastAccessedAt());
-        entity.setVideoProgress(dto.getVideoProgress());
-        entity.setContentProgress(dto.getContentProgress());
-        return entity;
     }
 
     @Override
     public List<UserModuleProgressDto> getUserModuleProgressByUserId(String userId) {
-        List<UserModuleProgress> progressList = userModuleProgressRepository.findByUser_Id(userId);
-        return progressList.stream()
+        Query query = new Query(Criteria.where("userId").is(userId));
+        query.fields().exclude("subModules", "completedSubModuleIds");
+        return mongoTemplate.find(query, UserProgress.class).stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<UserSubModuleProgressDto> getUserSubModuleProgressByUserId(String userId) {
-        List<UserSubModuleProgress> progressList = userSubModuleProgressRepository.findByUser_Id(userId);
-        return progressList.stream()
-                .map(this::convertToDto)
+        Query query = new Query(Criteria.where("userId").is(userId));
+        query.fields().include("userId", "moduleId", "subModules");
+        return mongoTemplate.find(query, UserProgress.class).stream()
+                .flatMap(progress -> progress.getSubModules().stream()
+                        .map(state -> convertToDto(progress, state)))
                 .collect(Collectors.toList());
     }
 
@@ -300,4 +255,34 @@ public class UserProgressServiceImpl implements UserProgressService {
         // Fetch all user progress entries from the repository
         return userProgressRepository.findAll();
     }
-}
\ No newline at end of file
+
+    private static Query entryQuery(String userId, String moduleId) {
+        return new Query(Criteria.where("userId").is(userId).and("moduleId").is(moduleId));
+    }
+
+    // Helper method to convert a progress entry to the module progress DTO
+    private UserModuleProgressDto convertToDto(UserProgress entity) {
+        UserModuleProgressDto dto = new UserModuleProgressDto();
+        dto.setId(entity.getId());
+        dto.setUserId(entity.getUserId());
+        dto.setModuleId(entity.getModuleId());
+        dto.setCompletionPercentage(entity.getCompletionPercentage());
+        dto.setStatus(entity.getStatus());
+        dto.setLastAccessedAt(entity.getLastAccessedAt());
+        return dto;
+    }
+
+    // Helper method to convert embedded submodule state to the submodule progress DTO
+    private UserSubModuleProgressDto convertToDto(UserProgress entry, SubModuleProgress state) {
+        UserSubModuleProgressDto dto = new UserSubModuleProgressDto();
+        dto.setId(entry.getId());
+        dto.setUserId(entry.getUserId());
+        dto.setSubmoduleId(state.getSubModuleId());
+        dto.setCompletionPercentage(state.getCompletionPercentage());
+        dto.setStatus(state.getStatus());
+        dto.setLastAccessedAt(state.getLastAccessedAt());
+        dto.setVideoProgress(state.getVideoProgress());
+        dto.setContentProgress(state.getContentProgress());
+        return dto;
+    }
+}
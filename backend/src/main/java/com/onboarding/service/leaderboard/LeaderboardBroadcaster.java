@@ -0,0 +1,206 @@
+package com.onboarding.service.leaderboard;
+
+import com.onboarding.dto.LeaderboardDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes leaderboard changes to Server-Sent Events subscribers.
+ * <p>
+ * Changes are coalesced per client (last value per user wins) and flushed at
+ * most once per {@code leaderboard.stream.interval-ms}. A client whose pending
+ * changes exceed {@code leaderboard.stream.max-pending} is downgraded to a
+ * single "resync" event telling it to refetch the board, so slow consumers never
+ * buffer without limit.
+ * <p>
+ * A client whose send takes longer than {@code leaderboard.stream.send-timeout-ms}
+ * is unsubscribed and its stream is completed once the blocked write returns.
+ * Sends run on a pool that grows from {@code leaderboard.stream.sender-threads}
+ * to {@code leaderboard.stream.max-sender-threads} without queueing, so a client
+ * stuck in a write never holds up the others; when every thread is busy a
+ * client's changes keep coalescing until the next flush.
+ */
+@Component
+public class LeaderboardBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardBroadcaster.class);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+    private final long emitterTimeoutMs;
+    private final int maxPending;
+    private final long sendTimeoutNanos;
+
+    public LeaderboardBroadcaster(
+            @Value("${leaderboard.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${leaderboard.stream.max-pending:500}") int maxPending,
+            @Value("${leaderboard.stream.send-timeout-ms:5000}") long sendTimeoutMs,
+            @Value("${leaderboard.stream.sender-threads:4}") int senderThreads,
+            @Value("${leaderboard.stream.max-sender-threads:32}") int maxSenderThreads) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxPending = maxPending;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, Math.max(senderThreads, maxSenderThreads),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "leaderboard-sse-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Register a new client and send it the current top of the board.
+     */
+    public SseEmitter subscribe(List<LeaderboardDTO> snapshot) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(snapshot, MediaType.APPLICATION_JSON));
+            subscribers.add(subscriber);
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    /**
+     * Queue a changed entry for every subscriber.
+     */
+    public void publish(LeaderboardDTO change) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(change);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.stream.interval-ms:1000}")
+    public void flush() {
+        for (Subscriber subscriber : subscribers) {
+            // A stuck send holds a sender thread even while there is nothing new to send
+            if (subscriber.sending) {
+                if (System.nanoTime() - subscriber.sendStartedAt > sendTimeoutNanos) {
+                    // The emitter cannot be completed while the write holds it, so the
+                    // sender completes it once the write returns or times out
+                    log.debug("Dropping slow leaderboard subscriber, send exceeded {} ms",
+                            TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+                    subscribers.remove(subscriber);
+                    subscriber.dropped = true;
+                    if (!subscriber.sending) {
+                        subscriber.completeOnce();
+                    }
+                }
+                continue;
+            }
+            if (!subscriber.hasPending()) {
+                continue;
+            }
+            subscriber.sendStartedAt = System.nanoTime();
+            subscriber.sending = true;
+            try {
+                sender.execute(() -> send(subscriber));
+            } catch (RejectedExecutionException e) {
+                // Every sender is busy, the changes go out with a later flush
+                subscriber.sending = false;
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        try {
+            if (subscriber.takeResync()) {
+                subscriber.emitter.send(SseEmitter.event().name("resync").data(""));
+            } else {
+                List<LeaderboardDTO> changes = subscriber.drain();
+                if (!changes.isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event().name("delta").data(changes, MediaType.APPLICATION_JSON));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+        } finally {
+            subscriber.sending = false;
+        }
+        if (subscriber.dropped) {
+            subscriber.completeOnce();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        // Latest change per user, in arrival order
+        private final Map<String, LeaderboardDTO> pending = new LinkedHashMap<>();
+        private boolean resync;
+        volatile boolean sending;
+        volatile long sendStartedAt;
+        volatile boolean dropped;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void completeOnce() {
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        synchronized void offer(LeaderboardDTO change) {
+            if (resync) {
+                return;
+            }
+            pending.put(change.getUserId(), change);
+            if (pending.size() > maxPending) {
+                pending.clear();
+                resync = true;
+            }
+        }
+
+        synchronized boolean hasPending() {
+            return resync || !pending.isEmpty();
+        }
+
+        synchronized boolean takeResync() {
+            boolean wasResync = resync;
+            resync = false;
+            return wasResync;
+        }
+
+        synchronized List<LeaderboardDTO> drain() {
+            List<LeaderboardDTO> changes = new ArrayList<>(pending.values());
+            pending.clear();
+            return changes;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.onboarding.service.leaderboard;
+
+import com.onboarding.model.Leaderboard;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor pointing at the last leaderboard entry of a page,
+ * encoded as URL-safe Base64 of {@code score|lastUpdated|userId}.
+ */
+public final class LeaderboardCursor {
+
+    private final int score;
+    private final LocalDateTime lastUpdated;
+    private final String userId;
+
+    private LeaderboardCursor(int score, LocalDateTime lastUpdated, String userId) {
+        this.score = score;
+        this.lastUpdated = lastUpdated;
+        this.userId = userId;
+    }
+
+    public static String encode(Leaderboard last) {
+        String raw = last.getScore() + "|" + (last.getLastUpdated() != null ? last.getLastUpdated() : "") + "|"
+                + last.getUserId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LeaderboardCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Malformed leaderboard cursor");
+            }
+            LocalDateTime lastUpdated = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new LeaderboardCursor(Integer.parseInt(parts[0]), lastUpdated, parts[2]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed leaderboard cursor", e);
+        }
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}
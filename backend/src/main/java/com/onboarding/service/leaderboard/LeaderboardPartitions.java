@@ -0,0 +1,190 @@
+package com.onboarding.service.leaderboard;
+
+import com.onboarding.model.Leaderboard;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sub-leaderboards partitioned by module skill and module type, each held in
+ * its own {@link LeaderboardRankIndex}.
+ * <p>
+ * Scores are kept per (module, user) so that a partition entry is the sum of
+ * the user's contributions from the modules tagged with that partition. When
+ * a module's tags change only the partitions it joins or leaves are
+ * recomputed, and only for the users who scored on that module.
+ */
+public class LeaderboardPartitions {
+
+    public enum Kind {
+        SKILL,
+        TYPE
+    }
+
+    private record PartitionKey(Kind kind, String name) {
+        static PartitionKey of(Kind kind, String name) {
+            return new PartitionKey(kind, name.trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private record Contribution(int score, LocalDateTime lastUpdated) {
+    }
+
+    private final Map<PartitionKey, LeaderboardRankIndex> partitions = new ConcurrentHashMap<>();
+    private final Map<PartitionKey, Set<String>> modulesByPartition = new HashMap<>();
+    private final Map<String, Set<PartitionKey>> partitionsByModule = new HashMap<>();
+    private final Map<String, Map<String, Contribution>> contributionsByModule = new HashMap<>();
+    private final Map<String, String> userNames = new HashMap<>();
+
+    /**
+     * Drop every partition and contribution, e.g. before reloading.
+     */
+    public synchronized void clear() {
+        partitions.clear();
+        modulesByPartition.clear();
+        partitionsByModule.clear();
+        contributionsByModule.clear();
+        userNames.clear();
+    }
+
+    /**
+     * Set the type and skills of a module, moving its contributions between
+     * partitions if they changed.
+     */
+    public synchronized void setModuleTags(String moduleId, String type, Collection<String> skills) {
+        Set<PartitionKey> keys = new HashSet<>();
+        if (type != null && !type.isBlank()) {
+            keys.add(PartitionKey.of(Kind.TYPE, type));
+        }
+        if (skills != null) {
+            skills.stream()
+                    .filter(skill -> skill != null && !skill.isBlank())
+                    .forEach(skill -> keys.add(PartitionKey.of(Kind.SKILL, skill)));
+        }
+
+        Set<PartitionKey> previous = partitionsByModule.getOrDefault(moduleId, Set.of());
+        if (previous.equals(keys)) {
+            return;
+        }
+
+        Set<PartitionKey> affected = new HashSet<>(previous);
+        affected.addAll(keys);
+        affected.removeIf(key -> previous.contains(key) && keys.contains(key));
+
+        for (PartitionKey key : previous) {
+            if (!keys.contains(key)) {
+                Set<String> modules = modulesByPartition.get(key);
+                modules.remove(moduleId);
+                if (modules.isEmpty()) {
+                    modulesByPartition.remove(key);
+                }
+            }
+        }
+        for (PartitionKey key : keys) {
+            modulesByPartition.computeIfAbsent(key, k -> new HashSet<>()).add(moduleId);
+        }
+        if (keys.isEmpty()) {
+            partitionsByModule.remove(moduleId);
+        } else {
+            partitionsByModule.put(moduleId, keys);
+        }
+
+        Set<String> users = contributionsByModule.getOrDefault(moduleId, Map.of()).keySet();
+        for (PartitionKey key : affected) {
+            for (String userId : users) {
+                recompute(key, userId);
+            }
+            if (!modulesByPartition.containsKey(key)) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove a deleted module and its contributions from every partition.
+     */
+    public synchronized void removeModule(String moduleId) {
+        setModuleTags(moduleId, null, List.of());
+        contributionsByModule.remove(moduleId);
+    }
+
+    /**
+     * Remove a deleted user's contributions and entries from every partition.
+     */
+    public synchronized void removeUser(String userId) {
+        contributionsByModule.values().forEach(contributions -> contributions.remove(userId));
+        userNames.remove(userId);
+        partitions.values().forEach(index -> index.remove(userId));
+    }
+
+    /**
+     * Add a score change earned by a user on a module to the partitions the
+     * module belongs to.
+     */
+    public synchronized void record(String userId, String userName, String moduleId, int scoreDelta,
+            LocalDateTime at) {
+        if (userName != null) {
+            userNames.put(userId, userName);
+        }
+        contributionsByModule.computeIfAbsent(moduleId, k -> new HashMap<>())
+                .merge(userId, new Contribution(scoreDelta, at), (existing, change) -> new Contribution(
+                        existing.score() + change.score(), latest(existing.lastUpdated(), change.lastUpdated())));
+        for (PartitionKey key : partitionsByModule.getOrDefault(moduleId, Set.of())) {
+            recompute(key, userId);
+        }
+    }
+
+    /**
+     * @return the first {@code limit} entries of a partition in rank order, or
+     *         an empty list if no module belongs to it
+     */
+    public List<Leaderboard> top(Kind kind, String name, int limit) {
+        LeaderboardRankIndex index = partitions.get(PartitionKey.of(kind, name));
+        return index != null ? index.top(limit) : List.of();
+    }
+
+    // Sums the user's contributions over the modules of one partition
+    private void recompute(PartitionKey key, String userId) {
+        int score = 0;
+        LocalDateTime lastUpdated = null;
+        boolean contributed = false;
+        for (String moduleId : modulesByPartition.getOrDefault(key, Set.of())) {
+            Contribution contribution = contributionsByModule.getOrDefault(moduleId, Map.of()).get(userId);
+            if (contribution != null) {
+                contributed = true;
+                score += contribution.score();
+                lastUpdated = latest(lastUpdated, contribution.lastUpdated());
+            }
+        }
+
+        if (!contributed) {
+            LeaderboardRankIndex index = partitions.get(key);
+            if (index != null) {
+                index.remove(userId);
+            }
+            return;
+        }
+        Leaderboard entry = new Leaderboard();
+        entry.setUserId(userId);
+        entry.setUserName(userNames.get(userId));
+        entry.setScore(score);
+        entry.setLastUpdated(lastUpdated);
+        entry.setLastUpdatedAt(lastUpdated != null ? lastUpdated.atZone(ZoneId.systemDefault()).toInstant() : null);
+        partitions.computeIfAbsent(key, k -> new LeaderboardRankIndex()).put(entry);
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+}
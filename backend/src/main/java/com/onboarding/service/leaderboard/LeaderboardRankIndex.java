@@ -0,0 +1,293 @@
+package com.onboarding.service.leaderboard;
+
+import com.onboarding.model.Leaderboard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory order-statistic index over leaderboard entries, ordered by score
+ * (desc), last activity (desc, nulls last) and user id.
+ * <p>
+ * Backed by a size-augmented treap so rank lookups, rank selection and
+ * updates run in O(log n). Entries handed to the index must not be mutated
+ * afterwards, as their fields are the sort key.
+ */
+public class LeaderboardRankIndex {
+
+    public static final Comparator<Leaderboard> ORDER = Comparator
+            .comparingInt(Leaderboard::getScore).reversed()
+            .thenComparing(Leaderboard::getLastUpdated, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Leaderboard::getUserId);
+
+    private final Map<String, Leaderboard> entriesByUserId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+
+    private static final class Node {
+        final Leaderboard value;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(Leaderboard value) {
+            this.value = value;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    /**
+     * Insert or replace the entry of a user. Entries with an older revision
+     * than the indexed one are ignored, so out-of-order updates cannot roll a
+     * user back.
+     */
+    public void put(Leaderboard entry) {
+        lock.writeLock().lock();
+        try {
+            Leaderboard existing = entriesByUserId.get(entry.getUserId());
+            if (existing != null) {
+                if (existing.getRevision() > entry.getRevision()) {
+                    return;
+                }
+                root = delete(root, existing);
+            }
+            entriesByUserId.put(entry.getUserId(), entry);
+            root = insert(root, new Node(entry));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String userId) {
+        lock.writeLock().lock();
+        try {
+            Leaderboard existing = entriesByUserId.remove(userId);
+            if (existing != null) {
+                root = delete(root, existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index content, e.g. when rebuilding from the
+     * leaderboard collection.
+     */
+    public void reset(Collection<Leaderboard> entries) {
+        lock.writeLock().lock();
+        try {
+            entriesByUserId.clear();
+            root = null;
+            for (Leaderboard entry : entries) {
+                Leaderboard existing = entriesByUserId.put(entry.getUserId(), entry);
+                if (existing != null) {
+                    root = delete(root, existing);
+                }
+                root = insert(root, new Node(entry));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Leaderboard get(String userId) {
+        lock.readLock().lock();
+        try {
+            return entriesByUserId.get(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the 1-based rank of the user, or 0 if the user is not indexed
+     */
+    public int rankOf(String userId) {
+        lock.readLock().lock();
+        try {
+            Leaderboard entry = entriesByUserId.get(userId);
+            return entry != null ? countBefore(entry) + 1 : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the first {@code limit} entries in rank order
+     */
+    public List<Leaderboard> top(int limit) {
+        lock.readLock().lock();
+        try {
+            return slice(0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the entries ranked within {@code range} places of the user,
+     *         including the user, or an empty list if the user is not indexed
+     */
+    public List<Leaderboard> around(String userId, int range) {
+        lock.readLock().lock();
+        try {
+            Leaderboard entry = entriesByUserId.get(userId);
+            if (entry == null) {
+                return List.of();
+            }
+            int position = countBefore(entry);
+            int from = Math.max(0, position - range);
+            return slice(from, position + range + 1 - from);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns up to count entries starting at the 0-based position from,
+    // walking the tree in order once the start node has been located
+    private List<Leaderboard> slice(int from, int count) {
+        List<Leaderboard> result = new ArrayList<>(Math.max(0, Math.min(count, size(root) - from)));
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        int skip = from;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                stack.push(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                stack.push(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        while (!stack.isEmpty() && result.size() < count) {
+            Node current = stack.pop();
+            result.add(current.value);
+            Node next = current.right;
+            while (next != null) {
+                stack.push(next);
+                next = next.left;
+            }
+        }
+        return result;
+    }
+
+    private int countBefore(Leaderboard entry) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = ORDER.compare(entry, node.value);
+            if (cmp <= 0) {
+                if (cmp == 0) {
+                    return count + size(node.left);
+                }
+                node = node.left;
+            } else {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (ORDER.compare(newNode.value, node.value) < 0) {
+            node.left = insert(node.left, newNode);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, newNode);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, Leaderboard value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = ORDER.compare(value, node.value);
+        if (cmp < 0) {
+            node.left = delete(node.left, value);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, value);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.onboarding.service.leaderboard;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Rolling time windows for leaderboards, expressed in daily buckets ending
+ * with the current day.
+ */
+public enum LeaderboardWindow {
+    DAY(1),
+    WEEK(7),
+    MONTH(30);
+
+    private final int days;
+
+    LeaderboardWindow(int days) {
+        this.days = days;
+    }
+
+    /**
+     * @return the start of the oldest daily bucket inside the window
+     */
+    public LocalDateTime start(LocalDate today) {
+        return today.minusDays(days - 1L).atStartOfDay();
+    }
+
+    /**
+     * @return the window for a {@code ?window=} request parameter, or null for
+     *         the all-time board
+     * @throws IllegalArgumentException if the value is not a known window
+     */
+    public static LeaderboardWindow fromParam(String value) {
+        if (value == null || value.isBlank() || "all".equalsIgnoreCase(value)) {
+            return null;
+        }
+        return LeaderboardWindow.valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,42 @@
+package com.onboarding.service.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the best {@code k} elements of a sequence with a bounded heap, in
+ * O(n log k) time and O(k) memory, instead of sorting the whole sequence.
+ */
+public final class TopKSelector {
+
+    private TopKSelector() {
+    }
+
+    /**
+     * @param elements the elements to select from
+     * @param k        the maximum number of elements to keep
+     * @param order    the ranking order, best element first
+     * @return up to {@code k} elements sorted by {@code order}
+     */
+    public static <T> List<T> select(Iterable<? extends T> elements, int k, Comparator<? super T> order) {
+        if (k <= 0) {
+            return List.of();
+        }
+        // The head of the heap is the worst element kept so far
+        Comparator<T> worstFirst = (a, b) -> order.compare(b, a);
+        PriorityQueue<T> heap = new PriorityQueue<>(Math.min(k, 1024) + 1, worstFirst);
+        for (T element : elements) {
+            if (heap.size() < k) {
+                heap.add(element);
+            } else if (order.compare(element, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(element);
+            }
+        }
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order);
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+package com.onboarding.service.leaderboard;
+
+import com.onboarding.model.Module;
+import com.onboarding.model.Quiz;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Computes the trainee leaderboard points of every user in a single pass.
+ * <p>
+ * A module counts when its completion mode is MANDATORY or SELF_LEARNED: it
+ * is worth {@value #POINTS_PER_COMPLETED_MODULE} points once completed, plus
+ * up to {@value #MAX_QUIZ_POINTS} points proportional to the score of its
+ * quiz. The engine issues a fixed number of queries (modules, quizzes, one
+ * streamed cursor over user_progress and one over user_quizzes) regardless of
+ * the number of trainees.
+ */
+@Component
+public class TraineeScoringEngine {
+
+    public static final int POINTS_PER_COMPLETED_MODULE = 50;
+    public static final int MAX_QUIZ_POINTS = 50;
+
+    private final MongoTemplate mongoTemplate;
+
+    public TraineeScoringEngine(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @return points per user id; users without any scoring activity are absent
+     */
+    public Map<String, Integer> computePoints() {
+        Query moduleQuery = new Query(Criteria.where("completionMode").in("MANDATORY", "SELF_LEARNED"));
+        moduleQuery.fields().include("id");
+        Set<String> scoringModuleIds = new HashSet<>();
+        for (Module module : mongoTemplate.find(moduleQuery, Module.class)) {
+            scoringModuleIds.add(module.getId());
+        }
+        if (scoringModuleIds.isEmpty()) {
+            return Map.of();
+        }
+
+        // One quiz per module, the first one found wins
+        Query quizQuery = new Query(Criteria.where("moduleId").in(scoringModuleIds));
+        quizQuery.fields().include("id", "moduleId");
+        Map<String, String> quizIdByModuleId = new HashMap<>();
+        for (Quiz quiz : mongoTemplate.find(quizQuery, Quiz.class)) {
+            quizIdByModuleId.putIfAbsent(quiz.getModuleId(), quiz.getId());
+        }
+        Set<String> scoringQuizIds = new HashSet<>(quizIdByModuleId.values());
+
+        Map<String, Integer> points = new HashMap<>();
+
+        Query progressQuery = new Query(Criteria.where("status").is("COMPLETED").and("moduleId").in(scoringModuleIds));
+        progressQuery.fields().include("userId", "moduleId").exclude("_id");
+        Set<String> countedModules = new HashSet<>();
+        try (Stream<Document> progress = mongoTemplate.stream(progressQuery, Document.class,
+                "user_progress")) {
+            progress.forEach(row -> {
+                String userId = row.getString("userId");
+                // Duplicate progress rows for the same module only count once
+                if (countedModules.add(userId + '\u0000' + row.getString("moduleId"))) {
+                    points.merge(userId, POINTS_PER_COMPLETED_MODULE, Integer::sum);
+                }
+            });
+        }
+
+        if (!scoringQuizIds.isEmpty()) {
+            Query quizResultQuery = new Query(Criteria.where("completed").is(true).and("quizId").in(scoringQuizIds));
+            quizResultQuery.fields().include("userId", "quizId", "score", "maxScore").exclude("_id");
+            Set<String> countedQuizzes = new HashSet<>();
+            try (Stream<Document> results = mongoTemplate.stream(quizResultQuery, Document.class,
+                    "user_quizzes")) {
+                results.forEach(row -> {
+                    String userId = row.getString("userId");
+                    if (countedQuizzes.add(userId + '\u0000' + row.getString("quizId"))) {
+                        double scorePercentage = (double) intValue(row, "score") / intValue(row, "maxScore");
+                        points.merge(userId, (int) (MAX_QUIZ_POINTS * scorePercentage), Integer::sum);
+                    }
+                });
+            }
+        }
+
+        return points;
+    }
+
+    private static int intValue(Document row, String field) {
+        Object value = row.get(field);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
@@ -0,0 +1,288 @@
+package com.onboarding.service.progress;
+
+import com.mongodb.DBRef;
+import com.mongodb.MongoNamespace;
+import com.mongodb.bulk.BulkWriteResult;
+import com.onboarding.model.UserProgress;
+import com.onboarding.service.LeaderboardService;
+import com.onboarding.service.TraineeSummaryService;
+import com.onboarding.service.badge.AchievementStateReconciler;
+import com.onboarding.service.cache.ModuleStructure;
+import com.onboarding.service.cache.ModuleStructureCache;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Moves the old {@code userProgress} collection, where module and submodule
+ * progress were separate documents holding references to users, modules and
+ * submodules, into the embedded submodule state of {@code user_progress}.
+ * <p>
+ * Documents are streamed and written in unordered bulk batches of
+ * {@code progress.migration.batch-size}. Submodule positions are merged into the
+ * entry of their module, and completed submodules are added to its completed
+ * submodules. Old module documents upsert the entry of their module, keeping the
+ * further of the stored and the old status and percentage; a completed module
+ * has all of its submodules added to the completed ones. Documents
+ * that match no entry and create none are counted as skipped. Every write is
+ * idempotent, and once the whole collection is converted it is renamed to
+ * {@code userProgress_migrated} so the job does not run again.
+ */
+@Component
+public class LegacyProgressMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyProgressMigration.class);
+
+    static final String LEGACY_COLLECTION = "userProgress";
+    static final String MIGRATED_COLLECTION = "userProgress_migrated";
+
+    private final MongoTemplate mongoTemplate;
+    private final ModuleStructureCache moduleStructureCache;
+    private final TraineeSummaryService traineeSummaryService;
+    private final LeaderboardService leaderboardService;
+    private final AchievementStateReconciler achievementStateReconciler;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public LegacyProgressMigration(
+            MongoTemplate mongoTemplate,
+            ModuleStructureCache moduleStructureCache,
+            TraineeSummaryService traineeSummaryService,
+            LeaderboardService leaderboardService,
+            AchievementStateReconciler achievementStateReconciler,
+            @Value("${progress.migration.enabled:true}") boolean enabled,
+            @Value("${progress.migration.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.moduleStructureCache = moduleStructureCache;
+        this.traineeSummaryService = traineeSummaryService;
+        this.leaderboardService = leaderboardService;
+        this.achievementStateReconciler = achievementStateReconciler;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (mongoTemplate.collectionExists(LEGACY_COLLECTION)) {
+                migrate();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Legacy progress migration skipped: {}", e.getMessage());
+        }
+    }
+
+    public synchronized void migrate() {
+        long migrated = 0;
+        long skipped = 0;
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "_id")).cursorBatchSize(batchSize);
+        BulkOperations bulkOperations = newBatch();
+        int pending = 0;
+
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, LEGACY_COLLECTION)) {
+            for (Document document : (Iterable<Document>) documents::iterator) {
+                if (!addToBatch(bulkOperations, document)) {
+                    skipped++;
+                    continue;
+                }
+                if (++pending == batchSize) {
+                    long written = written(bulkOperations.execute());
+                    migrated += written;
+                    skipped += pending - written;
+                    bulkOperations = newBatch();
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            long written = written(bulkOperations.execute());
+            migrated += written;
+            skipped += pending - written;
+        }
+
+        mongoTemplate.getCollection(LEGACY_COLLECTION).renameCollection(
+                new MongoNamespace(mongoTemplate.getDb().getName(), MIGRATED_COLLECTION));
+        // Module statuses and activity times are not reflected in the derived state yet
+        traineeSummaryService.requestRebuild();
+        achievementStateReconciler.requestReconciliation();
+        leaderboardService.rebuildLeaderboard();
+        log.info("Migrated {} legacy progress documents into user_progress, skipped {}", migrated, skipped);
+    }
+
+    private static long written(BulkWriteResult result) {
+        return result.getMatchedCount() + result.getUpserts().size();
+    }
+
+    // Returns false for documents that cannot be mapped to a user and module
+    private boolean addToBatch(BulkOperations bulkOperations, Document document) {
+        String userId = referencedId(document.get("user"));
+        if (userId == null) {
+            return false;
+        }
+        LocalDateTime lastAccessedAt = toLocalDateTime(document.get("lastAccessedAt"));
+
+        if ("module".equals(document.getString("progressType"))) {
+            String moduleId = referencedId(document.get("module"));
+            Optional<ModuleStructure> module = moduleId != null ? moduleStructureCache.get(moduleId)
+                    : Optional.empty();
+            if (module.isEmpty()) {
+                return false;
+            }
+            String status = ProgressUpdates.moduleStatus(document.getString("status"));
+            // A completed module has all of its submodules completed
+            List<String> completedSubModuleIds = "COMPLETED".equals(status) ? module.get().getSubModuleIds()
+                    : List.of();
+            bulkOperations.upsert(entryQuery(userId, moduleId), moduleUpdate(status,
+                    document.getInteger("completionPercentage", 0), completedSubModuleIds,
+                    lastAccessedAt != null ? lastAccessedAt : LocalDateTime.now()));
+            return true;
+        }
+
+        String subModuleId = referencedId(document.get("subModule"));
+        Optional<ModuleStructure> module = (subModuleId != null ? moduleStructureCache.findModuleIdOf(subModuleId)
+                : Optional.<String>empty()).flatMap(moduleStructureCache::get);
+        if (module.isEmpty()) {
+            return false;
+        }
+        Map<String, Object> values = new HashMap<>();
+        values.put("completionPercentage", document.getInteger("completionPercentage", 0));
+        values.put("status", document.getString("status"));
+        values.put("videoProgress", document.getInteger("videoProgress", 0));
+        values.put("contentProgress", document.getString("contentProgress"));
+        AggregationUpdate update = ProgressUpdates.mergeSubModule(subModuleId, values, Map.of(),
+                lastAccessedAt != null ? lastAccessedAt : LocalDateTime.now());
+        if ("COMPLETED".equals(ProgressUpdates.moduleStatus(document.getString("status")))) {
+            update = completeSubModule(update, subModuleId, module.get());
+        }
+        bulkOperations.upsert(entryQuery(userId, module.get().getId()), update);
+        return true;
+    }
+
+    /**
+     * Builds the pipeline update that raises an entry to the status and
+     * percentage of an old module document and adds the given submodules to its
+     * completed ones. Whichever of the stored and the old values is further
+     * along is kept, and missing entry fields are initialised so the update can
+     * be used to upsert.
+     */
+    private static AggregationUpdate moduleUpdate(String status, int completionPercentage,
+            List<String> completedSubModuleIds, LocalDateTime lastAccessedAt) {
+        Date timestamp = Date.from(lastAccessedAt.atZone(ZoneId.systemDefault()).toInstant());
+        Document raiseEntry = new Document("$set", new Document()
+                .append("status", furtherStatus(new Document("$literal", status)))
+                .append("completionPercentage", new Document("$max", List.of(
+                        new Document("$ifNull", Arrays.asList("$completionPercentage", 0)), completionPercentage)))
+                .append("completedSubModuleIds",
+                        ProgressUpdates.appendCompletedSubModuleIds(completedSubModuleIds))
+                .append("quizCompleted", new Document("$ifNull", Arrays.asList("$quizCompleted", false)))
+                .append("subModules", new Document("$ifNull", Arrays.asList("$subModules", List.of())))
+                .append("lastAccessedAt", new Document("$max", List.of("$lastAccessedAt", timestamp))));
+        Document setCompletedAt = setCompletedAt(timestamp);
+
+        return AggregationUpdate.from(List.of(
+                context -> raiseEntry,
+                context -> setCompletedAt));
+    }
+
+    /**
+     * Extends the merge of an old completed submodule document so the submodule
+     * is also added to the completed ones of the entry, and the entry is raised
+     * to the percentage and status computed from them the way
+     * {@link ProgressUpdates#completion} does.
+     */
+    private static AggregationUpdate completeSubModule(AggregationUpdate mergeSubModule, String subModuleId,
+            ModuleStructure module) {
+        boolean countQuiz = module.isQuizIncludedInCompletion();
+        int totalItems = module.getSubModuleCount() + (countQuiz ? 1 : 0);
+        Document addCompleted = new Document("$set", new Document("completedSubModuleIds",
+                ProgressUpdates.appendCompletedSubModuleIds(List.of(subModuleId))));
+        Document raisePercentage = new Document("$set", new Document("completionPercentage",
+                new Document("$max", List.of("$completionPercentage",
+                        ProgressUpdates.completedPercentage(totalItems, countQuiz)))));
+        Document raiseStatus = new Document("$set", new Document("status", furtherStatus(new Document("$switch",
+                new Document()
+                        .append("branches", List.of(
+                                new Document("case", new Document("$gte", List.of("$completionPercentage", 100)))
+                                        .append("then", "COMPLETED"),
+                                new Document("case", new Document("$gt", List.of("$completionPercentage", 0)))
+                                        .append("then", "IN_PROGRESS")))
+                        .append("default", "NOT_STARTED")))));
+        Document setCompletedAt = setCompletedAt("$lastAccessedAt");
+
+        List<AggregationOperation> stages = new ArrayList<>(mergeSubModule.getPipeline().getOperations());
+        stages.add(context -> addCompleted);
+        stages.add(context -> raisePercentage);
+        stages.add(context -> raiseStatus);
+        stages.add(context -> setCompletedAt);
+        return AggregationUpdate.from(stages);
+    }
+
+    // Whichever of the stored status and the given one is further along
+    private static Document furtherStatus(Object status) {
+        Document storedStatus = new Document("$ifNull", Arrays.asList("$status", "NOT_STARTED"));
+        return new Document("$cond", List.of(
+                new Document("$gt", List.of(statusRank(status), statusRank(storedStatus))),
+                status,
+                storedStatus));
+    }
+
+    // Sets completedAt to the given time when an entry first becomes completed
+    private static Document setCompletedAt(Object timestamp) {
+        return new Document("$set", new Document("completedAt", new Document("$cond", List.of(
+                new Document("$eq", List.of("$status", "COMPLETED")),
+                new Document("$ifNull", Arrays.asList("$completedAt", timestamp)),
+                "$completedAt"))));
+    }
+
+    // Orders module statuses by how far along they are, unknown statuses count as not started
+    private static Document statusRank(Object status) {
+        return new Document("$switch", new Document()
+                .append("branches", List.of(
+                        new Document("case", new Document("$eq", List.of(status, "COMPLETED"))).append("then", 2),
+                        new Document("case", new Document("$eq", List.of(status, "IN_PROGRESS")))
+                                .append("then", 1)))
+                .append("default", 0));
+    }
+
+    private BulkOperations newBatch() {
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserProgress.class);
+    }
+
+    private static Query entryQuery(String userId, String moduleId) {
+        return new Query(Criteria.where("userId").is(userId).and("moduleId").is(moduleId));
+    }
+
+    private static String referencedId(Object reference) {
+        return reference instanceof DBRef dbRef ? dbRef.getId().toString() : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Date date ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+}
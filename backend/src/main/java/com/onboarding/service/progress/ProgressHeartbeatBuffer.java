@@ -0,0 +1,235 @@
+package com.onboarding.service.progress;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.onboarding.model.UserProgress;
+import com.onboarding.service.TraineeSummaryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for video and content position heartbeats.
+ * <p>
+ * Only the latest position per (user, submodule) is kept (last write wins) and
+ * dirty entries are written with one unordered bulk upsert every
+ * {@code progress.heartbeat.flush-interval-ms}, or as soon as
+ * {@code progress.heartbeat.flush-threshold} entries are pending. Memory is
+ * bounded by {@code progress.heartbeat.max-entries}: when the buffer is full,
+ * for example while MongoDB is unreachable, heartbeats for new (user, submodule)
+ * pairs are dropped and counted in {@code progress.heartbeat.dropped}. The
+ * reporting thread never waits for a flush. Pending entries are flushed on
+ * shutdown.
+ */
+@Component
+public class ProgressHeartbeatBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(ProgressHeartbeatBuffer.class);
+
+    public record Heartbeat(String userId, String moduleId, String subModuleId, int videoProgress,
+            String contentProgress, LocalDateTime reportedAt) {
+    }
+
+    private record Key(String userId, String subModuleId) {
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final TraineeSummaryService traineeSummaryService;
+    private final int flushThreshold;
+    private final int maxEntries;
+    private final Map<Key, Heartbeat> pending = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong receivedSinceFlush = new AtomicLong();
+    private final ExecutorService flusher;
+
+    private final Counter received;
+    private final Counter written;
+    private final Counter dropped;
+    private final DistributionSummary coalescingRatio;
+    private final Timer flushTimer;
+
+    public ProgressHeartbeatBuffer(
+            MongoTemplate mongoTemplate,
+            TraineeSummaryService traineeSummaryService,
+            MeterRegistry meterRegistry,
+            @Value("${progress.heartbeat.flush-threshold:1000}") int flushThreshold,
+            @Value("${progress.heartbeat.max-entries:20000}") int maxEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.traineeSummaryService = traineeSummaryService;
+        this.flushThreshold = flushThreshold;
+        this.maxEntries = maxEntries;
+        this.flusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "progress-heartbeat-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.received = Counter.builder("progress.heartbeat.received")
+                .description("Position heartbeats accepted into the buffer")
+                .register(meterRegistry);
+        this.written = Counter.builder("progress.heartbeat.written")
+                .description("Coalesced positions written to MongoDB")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("progress.heartbeat.dropped")
+                .description("Positions dropped because the buffer was full")
+                .register(meterRegistry);
+        this.coalescingRatio = DistributionSummary.builder("progress.heartbeat.coalescing.ratio")
+                .description("Heartbeats received per document written, per flush")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("progress.heartbeat.flush")
+                .description("Time to write one batch of buffered positions")
+                .register(meterRegistry);
+        Gauge.builder("progress.heartbeat.pending", pending, Map::size)
+                .description("Positions waiting to be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buffer the latest position of a user in a submodule. The position is
+     * dropped if the buffer is full and holds nothing for the pair yet.
+     *
+     * @return whether the position was buffered
+     */
+    public boolean record(Heartbeat heartbeat) {
+        Key key = new Key(heartbeat.userId(), heartbeat.subModuleId());
+        if (pending.size() >= maxEntries && !pending.containsKey(key)) {
+            // Full: a later heartbeat carries a newer position anyway
+            dropped.increment();
+            scheduleFlush();
+            return false;
+        }
+        pending.put(key, heartbeat);
+        received.increment();
+        receivedSinceFlush.incrementAndGet();
+
+        if (pending.size() >= flushThreshold) {
+            scheduleFlush();
+        }
+        return true;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * @return the buffered position not yet written for a user and submodule
+     */
+    public Optional<Heartbeat> getPending(String userId, String subModuleId) {
+        return Optional.ofNullable(pending.get(new Key(userId, subModuleId)));
+    }
+
+    /**
+     * Drop a buffered position, e.g. when the progress entry is saved directly.
+     */
+    public void discard(String userId, String subModuleId) {
+        pending.remove(new Key(userId, subModuleId));
+    }
+
+    @Scheduled(fixedDelayString = "${progress.heartbeat.flush-interval-ms:5000}")
+    public void flush() {
+        synchronized (flushLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Heartbeat> batch = new ArrayList<>(pending.size());
+            for (Key key : pending.keySet()) {
+                Heartbeat heartbeat = pending.remove(key);
+                if (heartbeat != null) {
+                    batch.add(heartbeat);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            long heartbeats = receivedSinceFlush.getAndSet(0);
+            Timer.Sample sample = Timer.start();
+            try {
+                write(batch);
+                written.increment(batch.size());
+                coalescingRatio.record((double) heartbeats / batch.size());
+            } catch (DataAccessException e) {
+                // Keep the positions for the next flush unless a newer one arrived
+                // meanwhile, as far as they fit in the buffer
+                for (Heartbeat heartbeat : batch) {
+                    Key key = new Key(heartbeat.userId(), heartbeat.subModuleId());
+                    if (pending.size() < maxEntries || pending.containsKey(key)) {
+                        pending.putIfAbsent(key, heartbeat);
+                    } else {
+                        dropped.increment();
+                    }
+                }
+                receivedSinceFlush.addAndGet(heartbeats);
+                log.warn("Flushing {} progress heartbeats failed: {}", batch.size(), e.getMessage());
+            } finally {
+                sample.stop(flushTimer);
+            }
+        }
+    }
+
+    private void write(List<Heartbeat> batch) {
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                UserProgress.class);
+        for (Heartbeat heartbeat : batch) {
+            Query query = new Query(Criteria.where("userId").is(heartbeat.userId())
+                    .and("moduleId").is(heartbeat.moduleId()));
+            Map<String, Object> values = new HashMap<>();
+            values.put("videoProgress", heartbeat.videoProgress());
+            if (heartbeat.contentProgress() != null) {
+                values.put("contentProgress", heartbeat.contentProgress());
+            }
+            bulkOperations.upsert(query, ProgressUpdates.mergeSubModule(heartbeat.subModuleId(), values,
+                    Map.of("status", "In Progress", "completionPercentage", 0), heartbeat.reportedAt()));
+        }
+        BulkWriteResult result = bulkOperations.execute();
+
+        // Upserts created new progress entries; everything else only moves last activity
+        Map<String, LocalDateTime> lastAccessByUser = new HashMap<>();
+        batch.forEach(heartbeat -> lastAccessByUser.merge(heartbeat.userId(), heartbeat.reportedAt(),
+                (first, second) -> first.isAfter(second) ? first : second));
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            Heartbeat created = batch.get(upsert.getIndex());
+            traineeSummaryService.applyProgressChange(created.userId(), null, 0, "NOT_STARTED", 0,
+                    created.reportedAt());
+        }
+        traineeSummaryService.applyActivity(lastAccessByUser);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+}
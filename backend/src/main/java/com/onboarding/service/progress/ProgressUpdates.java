@@ -0,0 +1,158 @@
+package com.onboarding.service.progress;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Update builders shared by everything that writes the completion state or the
+ * embedded submodule state of {@code user_progress} entries.
+ */
+public final class ProgressUpdates {
+
+    private ProgressUpdates() {
+    }
+
+    /**
+     * Builds the pipeline update that writes {@code values} into the embedded
+     * state of one submodule. If the entry has no state for the submodule yet,
+     * one is appended from {@code defaults} and {@code values}. The
+     * lastAccessedAt of the submodule and of the entry only move forward, and
+     * missing entry fields are initialised so the update can be used to upsert.
+     * Values are passed as literals, so user supplied strings are never read as
+     * field paths.
+     */
+    public static AggregationUpdate mergeSubModule(String subModuleId, Map<String, ?> values,
+            Map<String, ?> defaults, LocalDateTime accessedAt) {
+        Date timestamp = Date.from(accessedAt.atZone(ZoneId.systemDefault()).toInstant());
+        Object id = new Document("$literal", subModuleId);
+        Document existing = new Document("$ifNull", Arrays.asList("$subModules", List.of()));
+
+        Document newState = new Document("subModuleId", id);
+        defaults.forEach((field, value) -> newState.append(field, new Document("$literal", value)));
+        Document changes = new Document();
+        values.forEach((field, value) -> changes.append(field, new Document("$literal", value)));
+        newState.putAll(changes);
+        newState.append("lastAccessedAt", timestamp);
+
+        Document updatedState = new Document("$mergeObjects", List.of("$$this", changes,
+                new Document("lastAccessedAt", new Document("$max", List.of("$$this.lastAccessedAt", timestamp)))));
+        Document mergeState = new Document("$set", new Document("subModules", new Document("$cond", List.of(
+                new Document("$in", List.of(id,
+                        new Document("$ifNull", Arrays.asList("$subModules.subModuleId", List.of())))),
+                new Document("$map", new Document()
+                        .append("input", existing)
+                        .append("in", new Document("$cond", List.of(
+                                new Document("$eq", List.of("$$this.subModuleId", id)),
+                                updatedState,
+                                "$$this")))),
+                new Document("$concatArrays", List.of(existing, List.of(newState)))))));
+
+        Document initialiseEntry = new Document("$set", new Document()
+                .append("status", new Document("$ifNull", Arrays.asList("$status", "NOT_STARTED")))
+                .append("completionPercentage", new Document("$ifNull", Arrays.asList("$completionPercentage", 0)))
+                .append("completedSubModuleIds",
+                        new Document("$ifNull", Arrays.asList("$completedSubModuleIds", List.of())))
+                .append("quizCompleted", new Document("$ifNull", Arrays.asList("$quizCompleted", false)))
+                .append("lastAccessedAt", new Document("$max", List.of("$lastAccessedAt", timestamp))));
+
+        return AggregationUpdate.from(List.of(
+                context -> mergeState,
+                context -> initialiseEntry));
+    }
+
+    /**
+     * Builds the pipeline update that adds submodules to a progress entry,
+     * optionally marks its quiz as completed, and recomputes its completion
+     * percentage, status and completedAt from the stored values. Submodules
+     * already in the entry are not added twice, and missing fields are treated
+     * as an empty entry so it can be used to upsert.
+     *
+     * @param totalItems the number of items the percentage is computed over
+     * @param countQuiz  whether a completed quiz counts as one of those items
+     */
+    public static AggregationUpdate completion(List<String> subModuleIds, boolean quizCompleted, int totalItems,
+            boolean countQuiz, LocalDateTime now) {
+        Date timestamp = Date.from(now.atZone(ZoneId.systemDefault()).toInstant());
+        Document appendSubModules = new Document("$set", new Document()
+                .append("completedSubModuleIds", appendCompletedSubModuleIds(subModuleIds))
+                .append("quizCompleted", quizCompleted ? Boolean.TRUE
+                        : new Document("$ifNull", Arrays.asList("$quizCompleted", false)))
+                .append("lastAccessedAt", timestamp));
+        Document recomputePercentage = new Document("$set", new Document("completionPercentage",
+                completedPercentage(totalItems, countQuiz)));
+        Document isComplete = new Document("$gte", List.of("$completionPercentage", 100));
+        Document recomputeStatus = new Document("$set", new Document()
+                .append("completedAt", new Document("$cond", Arrays.asList(
+                        new Document("$and", List.of(isComplete,
+                                new Document("$ne", List.of("$status", "COMPLETED")))),
+                        timestamp,
+                        "$completedAt")))
+                .append("status", new Document("$switch", new Document()
+                        .append("branches", List.of(
+                                new Document("case", isComplete).append("then", "COMPLETED"),
+                                new Document("case", new Document("$gt", List.of("$completionPercentage", 0)))
+                                        .append("then", "IN_PROGRESS")))
+                        .append("default", "NOT_STARTED"))));
+
+        return AggregationUpdate.from(List.of(
+                context -> appendSubModules,
+                context -> recomputePercentage,
+                context -> recomputeStatus));
+    }
+
+    /**
+     * @return the expression that appends the submodules missing from the
+     *         completedSubModuleIds of an entry, keeping the stored order
+     */
+    static Document appendCompletedSubModuleIds(List<String> subModuleIds) {
+        Document existingIds = new Document("$ifNull", Arrays.asList("$completedSubModuleIds", List.of()));
+        return new Document("$concatArrays", List.of(
+                existingIds,
+                new Document("$filter", new Document()
+                        .append("input", subModuleIds)
+                        .append("cond", new Document("$not", List.of(
+                                new Document("$in", List.of("$$this", existingIds))))))));
+    }
+
+    /**
+     * @return the expression for the completion percentage of an entry, computed
+     *         from its completedSubModuleIds and, if counted, its quiz
+     */
+    static Document completedPercentage(int totalItems, boolean countQuiz) {
+        Object completedItems = new Document("$add", List.of(
+                new Document("$size", "$completedSubModuleIds"),
+                countQuiz ? new Document("$cond", Arrays.asList("$quizCompleted", 1, 0)) : 0));
+        return new Document("$toInt", new Document("$floor", new Document("$divide", List.of(
+                new Document("$multiply", List.of(completedItems, 100)), totalItems))));
+    }
+
+    /**
+     * @return the module status {@link #completion} stores for a percentage
+     */
+    public static String statusFor(int completionPercentage) {
+        if (completionPercentage >= 100) {
+            return "COMPLETED";
+        }
+        return completionPercentage > 0 ? "IN_PROGRESS" : "NOT_STARTED";
+    }
+
+    /**
+     * Maps the display statuses of the old progress records ("Not Started",
+     * "In Progress", "Completed") to the module statuses of
+     * {@code user_progress}.
+     */
+    public static String moduleStatus(String status) {
+        if (status == null || status.isBlank()) {
+            return "NOT_STARTED";
+        }
+        return status.trim().toUpperCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+    }
+}
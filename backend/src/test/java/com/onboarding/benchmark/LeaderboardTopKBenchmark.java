@@ -0,0 +1,97 @@
+package com.onboarding.benchmark;
+
+import com.onboarding.dto.LeaderboardEntryDto;
+import com.onboarding.model.User;
+import com.onboarding.service.leaderboard.TopKSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares building and sorting a leaderboard entry for every trainee with
+ * the bounded-heap top-K selection used by TraineeServiceImpl.
+ * <p>
+ * Run with:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.onboarding.benchmark.LeaderboardTopKBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeaderboardTopKBenchmark {
+
+    @Param({ "10000", "100000" })
+    private int trainees;
+
+    @Param({ "10" })
+    private int limit;
+
+    private List<User> users;
+    private Map<String, Integer> points;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        users = new ArrayList<>(trainees);
+        points = new HashMap<>();
+        for (int i = 0; i < trainees; i++) {
+            User user = new User("user" + i, "secret", "First" + i, "Last" + i, "user" + i + "@example.com",
+                    "TRAINEE");
+            user.setId(String.format("%024x", i));
+            users.add(user);
+            points.put(user.getId(), random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    public List<LeaderboardEntryDto> fullSortThenLimit() {
+        return users.stream()
+                .map(this::toEntry)
+                .sorted(Comparator.comparingInt(LeaderboardEntryDto::getPoints).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LeaderboardEntryDto> boundedHeap() {
+        Comparator<User> byPoints = Comparator
+                .comparingInt((User user) -> points.getOrDefault(user.getId(), 0)).reversed()
+                .thenComparing(User::getId);
+        return TopKSelector.select(users, limit, byPoints).stream()
+                .map(this::toEntry)
+                .collect(Collectors.toList());
+    }
+
+    private LeaderboardEntryDto toEntry(User user) {
+        return new LeaderboardEntryDto(user.getId(), user.getFirstName() + " " + user.getLastName(),
+                user.getAvatar(), points.getOrDefault(user.getId(), 0));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LeaderboardTopKBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
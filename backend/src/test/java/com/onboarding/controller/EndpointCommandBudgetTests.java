@@ -0,0 +1,184 @@
+package com.onboarding.controller;
+
+import com.onboarding.metrics.RequestMetrics;
+import com.onboarding.model.Leaderboard;
+import com.onboarding.model.Module;
+import com.onboarding.model.Quiz;
+import com.onboarding.model.SubModule;
+import com.onboarding.model.TraineeSummary;
+import com.onboarding.model.User;
+import com.onboarding.model.UserProgress;
+import com.onboarding.model.UserQuiz;
+import com.onboarding.service.LeaderboardService;
+import com.onboarding.service.cache.ModuleStructureCache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calls the read endpoints against a local MongoDB with the debug profile and
+ * fails when one issues more Mongo commands than its budget. There are more
+ * trainees than any budget, so a query per trainee cannot stay under it.
+ * Each endpoint is called once to warm caches and trainee summaries before
+ * the measured call.
+ * <p>
+ * Skipped when no MongoDB is listening on localhost:27017.
+ */
+@SpringBootTest(properties = "spring.data.mongodb.database=onboarding_command_budget_tests")
+@AutoConfigureMockMvc
+@ActiveProfiles("debug")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIf("localMongoAvailable")
+class EndpointCommandBudgetTests {
+
+    private static final int TRAINEES = 30;
+    private static final int MODULES = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private ModuleStructureCache moduleStructureCache;
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    private String traineeId;
+    private String moduleId;
+
+    static boolean localMongoAvailable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", 27017), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @BeforeAll
+    void seed() {
+        for (Class<?> type : List.of(User.class, Module.class, SubModule.class, Quiz.class, UserProgress.class,
+                UserQuiz.class, Leaderboard.class, TraineeSummary.class)) {
+            mongoTemplate.remove(new Query(), type);
+        }
+
+        List<Module> modules = new ArrayList<>();
+        for (int m = 0; m < MODULES; m++) {
+            Module module = new Module("Module " + m, "Seeded module", "video", "1h");
+            module.setOrder(m);
+            module.setMandatory(m == 0);
+            module.setSkills(List.of("java"));
+            module = mongoTemplate.insert(module);
+            for (int s = 0; s < 2; s++) {
+                SubModule subModule = new SubModule();
+                subModule.setTitle("Submodule " + m + "." + s);
+                subModule.setOrder(s);
+                subModule.setModule(module);
+                mongoTemplate.insert(subModule);
+            }
+            Quiz quiz = new Quiz();
+            quiz.setModuleId(module.getId());
+            quiz.setTitle("Quiz " + m);
+            quiz.setQuestions(List.of());
+            quiz = mongoTemplate.insert(quiz);
+            module.setQuizId(quiz.getId());
+            modules.add(mongoTemplate.save(module));
+            moduleStructureCache.evict(module.getId());
+        }
+        moduleId = modules.get(0).getId();
+
+        for (int t = 0; t < TRAINEES; t++) {
+            User trainee = new User("trainee" + t, "secret", "Trainee", String.valueOf(t),
+                    "trainee" + t + "@example.com", "TRAINEE");
+            trainee.setLastActive(Instant.now().minusSeconds(t));
+            trainee = mongoTemplate.insert(trainee);
+            for (Module module : modules) {
+                UserProgress progress = new UserProgress(trainee.getId(), module.getId(), "IN_PROGRESS", 50);
+                progress.setLastAccessedAt(LocalDateTime.now());
+                mongoTemplate.insert(progress);
+                mongoTemplate.insert(new UserQuiz(trainee.getId(), module.getQuizId(), true, 80, Instant.now()));
+            }
+            traineeId = trainee.getId();
+        }
+
+        leaderboardService.rebuildLeaderboard();
+    }
+
+    @Test
+    void trainerDashboardStaysWithinBudget() throws Exception {
+        assertWithinBudget("/api/trainer/dashboard/stats", 6);
+        assertWithinBudget("/api/trainer/dashboard/recent-trainees?limit=" + TRAINEES, 4);
+    }
+
+    @Test
+    void traineeViewsStayWithinBudget() throws Exception {
+        assertWithinBudget("/api/trainees/" + traineeId + "/stats", 6);
+        assertWithinBudget("/api/trainees/" + traineeId + "/modules", 10);
+    }
+
+    @Test
+    void moduleCatalogStaysWithinBudget() throws Exception {
+        assertWithinBudget("/api/modules", 3);
+        assertWithinBudget(get("/api/modules/" + moduleId).header("User-Id", traineeId), 8);
+    }
+
+    @Test
+    void catalogRevalidationSkipsTheDatabase() throws Exception {
+        String etag = mockMvc.perform(get("/api/modules"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MvcResult result = mockMvc.perform(get("/api/modules").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andReturn();
+        assertEquals("0", result.getResponse().getHeader(RequestMetrics.COMMANDS_HEADER));
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    void leaderboardStaysWithinBudget() throws Exception {
+        assertWithinBudget("/api/leaderboard/top?limit=10", 2);
+        assertWithinBudget("/api/trainees/leaderboard", 6);
+    }
+
+    private void assertWithinBudget(String url, int maxCommands) throws Exception {
+        assertWithinBudget(get(url), maxCommands);
+    }
+
+    private void assertWithinBudget(MockHttpServletRequestBuilder request, int maxCommands) throws Exception {
+        mockMvc.perform(request).andExpect(status().isOk());
+        MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+        String url = result.getRequest().getRequestURI();
+
+        String commands = result.getResponse().getHeader(RequestMetrics.COMMANDS_HEADER);
+        assertNotNull(commands, "No " + RequestMetrics.COMMANDS_HEADER + " header on " + url);
+        assertTrue(Integer.parseInt(commands) <= maxCommands,
+                url + " issued " + commands + " Mongo commands, budget is " + maxCommands);
+    }
+}
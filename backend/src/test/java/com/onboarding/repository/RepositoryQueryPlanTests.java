@@ -0,0 +1,206 @@
+package com.onboarding.repository;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every declared repository query against a local MongoDB, captures the
+ * commands the driver sends and fails if the winning plan of any filtered or
+ * sorted command contains a COLLSCAN. Indexes are created by the application's
+ * own startup, in a separate database.
+ * <p>
+ * Skipped when no MongoDB is listening on localhost:27017.
+ */
+@SpringBootTest(properties = "spring.data.mongodb.database=onboarding_query_plan_tests")
+@EnabledIf("localMongoAvailable")
+class RepositoryQueryPlanTests {
+
+    private static final String ID = "000000000000000000000001";
+    private static final Set<String> READ_COMMANDS = Set.of("find", "aggregate", "count");
+    // Session and routing fields the driver adds, which explain does not accept
+    private static final Set<String> DRIVER_FIELDS = Set.of("$db", "lsid", "$clusterTime", "$readPreference",
+            "txnNumber", "apiVersion");
+
+    private static final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserProgressRepository userProgressRepository;
+    @Autowired
+    private UserQuizRepository userQuizRepository;
+    @Autowired
+    private ModuleRepository moduleRepository;
+    @Autowired
+    private SubModuleRepository subModuleRepository;
+    @Autowired
+    private QuizRepository quizRepository;
+    @Autowired
+    private LeaderboardRepository leaderboardRepository;
+
+    static boolean localMongoAvailable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", 27017), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @TestConfiguration
+    static class CommandCapture {
+        @Bean
+        MongoClientSettingsBuilderCustomizer commandCaptureCustomizer() {
+            return builder -> builder.addCommandListener(new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    if (READ_COMMANDS.contains(event.getCommandName())) {
+                        commands.add(event.getCommand().clone());
+                    }
+                }
+            });
+        }
+    }
+
+    @BeforeEach
+    void clearCommands() {
+        commands.clear();
+    }
+
+    @Test
+    void userQueriesUseIndexes() {
+        userRepository.findByEmail("trainee@example.com");
+        userRepository.existsByEmail("trainee@example.com");
+        userRepository.findByRole("TRAINEE");
+        userRepository.findByUsernameOrEmail("trainee", "trainee@example.com");
+        userRepository.existsByUsername("trainee");
+        userRepository.countByRole("TRAINEE");
+        userRepository.findByRoleOrderByLastActiveDesc("TRAINEE", PageRequest.of(0, 10));
+        assertNoCollectionScans();
+    }
+
+    @Test
+    void progressQueriesUseIndexes() {
+        userProgressRepository.findByUserId(ID);
+        userProgressRepository.countByUserIdAndStatus(ID, "COMPLETED");
+        userProgressRepository.findByUserIdAndModuleId(ID, ID);
+        assertNoCollectionScans();
+    }
+
+    @Test
+    void quizResultQueriesUseIndexes() {
+        userQuizRepository.findByUserId(ID);
+        userQuizRepository.countByUserIdAndCompleted(ID, true);
+        userQuizRepository.findByUserIdAndQuizId(ID, ID);
+        userQuizRepository.countByCompleted(true);
+        assertNoCollectionScans();
+    }
+
+    @Test
+    void moduleQueriesUseIndexes() {
+        moduleRepository.findByType("video");
+        moduleRepository.findBySkillsContaining("java");
+        moduleRepository.findBySkillsIn(List.of("java", "spring"));
+        moduleRepository.findByIsMandatoryTrue();
+        moduleRepository.findSummaryById(ID);
+        moduleRepository.findWithSubModulesById(ID);
+        subModuleRepository.findByModule_Id(ID);
+        quizRepository.findByModuleId(ID);
+        assertNoCollectionScans();
+    }
+
+    @Test
+    void leaderboardQueriesUseIndexes() {
+        Sort pageOrder = Sort.by(Sort.Order.desc("score"), Sort.Order.desc("lastUpdated"), Sort.Order.asc("userId"));
+        leaderboardRepository.findByUserId(ID);
+        leaderboardRepository.findAllBy(PageRequest.of(0, 20, pageOrder));
+        leaderboardRepository.findPageAfter(10, LocalDateTime.now(), ID, PageRequest.of(0, 20, pageOrder));
+        leaderboardRepository.findPageAfterInactive(10, ID, PageRequest.of(0, 20, pageOrder));
+        assertNoCollectionScans();
+    }
+
+    private void assertNoCollectionScans() {
+        assertFalse(commands.isEmpty(), "No queries were captured");
+        for (BsonDocument command : commands) {
+            Document query = Document.parse(command.toJson());
+            DRIVER_FIELDS.forEach(query::remove);
+            if (!isSelective(query)) {
+                continue;
+            }
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", query).append("verbosity", "queryPlanner"));
+            List<Object> winningPlans = new ArrayList<>();
+            collectWinningPlans(explain, winningPlans);
+            assertTrue(!winningPlans.isEmpty(), "No winning plan in explain output for " + query.toJson());
+            for (Object plan : winningPlans) {
+                assertFalse(containsCollectionScan(plan), "COLLSCAN for " + query.toJson() + "\n" + explain.toJson());
+            }
+        }
+    }
+
+    // Commands without a filter or sort read the whole collection by design
+    private static boolean isSelective(Document command) {
+        if (command.containsKey("aggregate")) {
+            List<?> pipeline = command.getList("pipeline", Object.class);
+            return !pipeline.isEmpty() && pipeline.get(0) instanceof Document stage
+                    && stage.containsKey("$match") && !((Document) stage.get("$match")).isEmpty();
+        }
+        Object filter = command.containsKey("find") ? command.get("filter") : command.get("query");
+        Object sort = command.get("sort");
+        return (filter instanceof Document f && !f.isEmpty()) || (sort instanceof Document s && !s.isEmpty());
+    }
+
+    private static void collectWinningPlans(Object node, List<Object> plans) {
+        if (node instanceof Document document) {
+            document.forEach((key, value) -> {
+                if ("winningPlan".equals(key)) {
+                    plans.add(value);
+                } else {
+                    collectWinningPlans(value, plans);
+                }
+            });
+        } else if (node instanceof List<?> list) {
+            list.forEach(item -> collectWinningPlans(item, plans));
+        }
+    }
+
+    private static boolean containsCollectionScan(Object node) {
+        if (node instanceof Document document) {
+            if ("COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            return document.values().stream().anyMatch(RepositoryQueryPlanTests::containsCollectionScan);
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(RepositoryQueryPlanTests::containsCollectionScan);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+package com.onboarding.service.leaderboard;
+
+import com.onboarding.model.Leaderboard;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks ranks and top-K of the treap against a list sorted with
+ * {@link LeaderboardRankIndex#ORDER} after random inserts, updates and deletes.
+ */
+class LeaderboardRankIndexTests {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Test
+    void matchesSortedReferenceAfterRandomChanges() {
+        Random random = new Random(42);
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        Map<String, Leaderboard> reference = new HashMap<>();
+
+        for (int step = 0; step < 5000; step++) {
+            String userId = "user" + random.nextInt(300);
+            if (random.nextInt(10) == 0) {
+                index.remove(userId);
+                reference.remove(userId);
+            } else {
+                Leaderboard previous = reference.get(userId);
+                // Few distinct scores and times so the tie-breakers are exercised
+                Leaderboard entry = entry(userId, random.nextInt(20),
+                        random.nextInt(5) == 0 ? null : BASE.plusMinutes(random.nextInt(10)),
+                        previous != null ? previous.getRevision() + 1 : 0);
+                index.put(entry);
+                reference.put(userId, entry);
+            }
+            if (step % 500 == 0) {
+                assertMatches(reference, index);
+            }
+        }
+        assertMatches(reference, index);
+    }
+
+    @Test
+    void updateMovesTheUser() {
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        index.put(entry("a", 30, BASE, 0));
+        index.put(entry("b", 20, BASE, 0));
+        index.put(entry("c", 10, BASE, 0));
+
+        index.put(entry("c", 40, BASE, 1));
+
+        assertEquals(3, index.size());
+        assertEquals(1, index.rankOf("c"));
+        assertEquals(3, index.rankOf("b"));
+        assertEquals(List.of("c", "a", "b"), userIds(index.top(10)));
+    }
+
+    @Test
+    void removeDropsTheUser() {
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        index.put(entry("a", 30, BASE, 0));
+        index.put(entry("b", 20, BASE, 0));
+
+        index.remove("a");
+        index.remove("missing");
+
+        assertEquals(1, index.size());
+        assertEquals(0, index.rankOf("a"));
+        assertNull(index.get("a"));
+        assertEquals(1, index.rankOf("b"));
+    }
+
+    @Test
+    void staleRevisionIsIgnored() {
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        Leaderboard current = entry("a", 50, BASE, 5);
+        index.put(current);
+        index.put(entry("b", 40, BASE, 0));
+
+        index.put(entry("a", 10, BASE, 4));
+
+        assertSame(current, index.get("a"));
+        assertEquals(1, index.rankOf("a"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void ordersTiesByLastActivityThenUserId() {
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        index.put(entry("b", 10, BASE, 0));
+        index.put(entry("a", 10, BASE, 0));
+        index.put(entry("c", 10, null, 0));
+        index.put(entry("d", 10, BASE.plusMinutes(1), 0));
+
+        assertEquals(List.of("d", "a", "b", "c"), userIds(index.top(10)));
+    }
+
+    @Test
+    void ordersScoreTiesWithoutLastActivityByUserId() {
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        index.put(entry("c", 10, null, 0));
+        index.put(entry("a", 10, null, 0));
+        index.put(entry("b", 10, null, 0));
+        index.put(entry("d", 20, null, 0));
+
+        assertEquals(List.of("d", "a", "b", "c"), userIds(index.top(10)));
+        assertEquals(2, index.rankOf("a"));
+        assertEquals(4, index.rankOf("c"));
+    }
+
+    @Test
+    void staleRevisionDoesNotMoveTheUser() {
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        index.put(entry("a", 30, BASE, 2));
+        index.put(entry("b", 20, BASE, 3));
+
+        index.put(entry("b", 50, BASE, 1));
+        index.put(entry("a", 0, BASE, 1));
+
+        assertEquals(List.of("a", "b"), userIds(index.top(10)));
+        assertEquals(30, index.get("a").getScore());
+        assertEquals(20, index.get("b").getScore());
+    }
+
+    @Test
+    void removeShiftsTheRanksBelow() {
+        LeaderboardRankIndex index = new LeaderboardRankIndex();
+        index.put(entry("a", 40, BASE, 0));
+        index.put(entry("b", 30, BASE, 0));
+        index.put(entry("c", 20, BASE, 0));
+        index.put(entry("d", 10, BASE, 0));
+
+        index.remove("b");
+
+        assertEquals(1, index.rankOf("a"));
+        assertEquals(0, index.rankOf("b"));
+        assertEquals(2, index.rankOf("c"));
+        assertEquals(3, index.rankOf("d"));
+        assertEquals(List.of("a", "c", "d"), userIds(index.top(10)));
+
+        index.put(entry("b", 30, BASE, 1));
+        assertEquals(2, index.rankOf("b"));
+        assertEquals(3, index.rankOf("c"));
+    }
+
+    private static void assertMatches(Map<String, Leaderboard> reference, LeaderboardRankIndex index) {
+        List<Leaderboard> sorted = new ArrayList<>(reference.values());
+        sorted.sort(LeaderboardRankIndex.ORDER);
+
+        assertEquals(sorted.size(), index.size());
+        assertEquals(userIds(sorted), userIds(index.top(sorted.size() + 10)));
+        assertEquals(userIds(sorted.subList(0, Math.min(10, sorted.size()))), userIds(index.top(10)));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i + 1, index.rankOf(sorted.get(i).getUserId()));
+        }
+        if (!sorted.isEmpty()) {
+            Leaderboard middle = sorted.get(sorted.size() / 2);
+            List<Leaderboard> around = index.around(middle.getUserId(), 2);
+            assertTrue(around.contains(middle));
+            int from = Math.max(0, sorted.size() / 2 - 2);
+            assertEquals(userIds(sorted.subList(from, Math.min(sorted.size(), sorted.size() / 2 + 3))),
+                    userIds(around));
+        }
+    }
+
+    private static Leaderboard entry(String userId, int score, LocalDateTime lastUpdated, long revision) {
+        Leaderboard entry = new Leaderboard();
+        entry.setUserId(userId);
+        entry.setScore(score);
+        entry.setLastUpdated(lastUpdated);
+        entry.setRevision(revision);
+        return entry;
+    }
+
+    private static List<String> userIds(List<Leaderboard> entries) {
+        return entries.stream().map(Leaderboard::getUserId).toList();
+    }
+}
@@ -0,0 +1,154 @@
+package com.onboarding.service.progress;
+
+import com.mongodb.DBRef;
+import com.onboarding.model.Leaderboard;
+import com.onboarding.model.Module;
+import com.onboarding.model.SubModule;
+import com.onboarding.model.TraineeSummary;
+import com.onboarding.model.User;
+import com.onboarding.model.UserProgress;
+import com.onboarding.repository.LeaderboardRepository;
+import com.onboarding.service.ProgressService;
+import com.onboarding.service.cache.ModuleStructureCache;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Migrates old progress documents into {@code user_progress} against a local
+ * MongoDB and completes submodules of the migrated entries afterwards.
+ * <p>
+ * Skipped when no MongoDB is listening on localhost:27017.
+ */
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=onboarding_legacy_migration_tests",
+        "progress.migration.enabled=false" })
+@EnabledIf("localMongoAvailable")
+class LegacyProgressMigrationTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private LegacyProgressMigration migration;
+    @Autowired
+    private ProgressService progressService;
+    @Autowired
+    private ModuleStructureCache moduleStructureCache;
+    @Autowired
+    private LeaderboardRepository leaderboardRepository;
+
+    private String userId;
+    private String moduleId;
+    private List<String> subModuleIds;
+
+    static boolean localMongoAvailable() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", 27017), 500);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        for (Class<?> type : List.of(User.class, Module.class, SubModule.class, UserProgress.class,
+                Leaderboard.class, TraineeSummary.class)) {
+            mongoTemplate.remove(new Query(), type);
+        }
+        mongoTemplate.dropCollection(LegacyProgressMigration.LEGACY_COLLECTION);
+        mongoTemplate.dropCollection(LegacyProgressMigration.MIGRATED_COLLECTION);
+
+        userId = mongoTemplate.insert(new User("trainee", "secret", "Trainee", "One", "trainee@example.com",
+                "TRAINEE")).getId();
+        Module module = new Module("Module", "Seeded module", "video", "1h");
+        module.setCompletionMode("MANDATORY");
+        module = mongoTemplate.insert(module);
+        subModuleIds = new ArrayList<>();
+        for (int s = 0; s < 2; s++) {
+            SubModule subModule = new SubModule();
+            subModule.setTitle("Submodule " + s);
+            subModule.setOrder(s);
+            subModule.setModule(module);
+            subModuleIds.add(mongoTemplate.insert(subModule).getId());
+        }
+        moduleId = module.getId();
+        moduleStructureCache.evict(moduleId);
+    }
+
+    @Test
+    void completedModuleStaysCompleted() {
+        insertLegacy(new Document("progressType", "module")
+                .append("module", new DBRef("modules", new ObjectId(moduleId)))
+                .append("status", "Completed")
+                .append("completionPercentage", 100));
+        insertLegacy(subModuleDocument(subModuleIds.get(0), "Completed"));
+
+        migration.migrate();
+        UserProgress migrated = progress();
+        assertEquals("COMPLETED", migrated.getStatus());
+        assertEquals(100, migrated.getCompletionPercentage());
+        assertEquals(subModuleIds, migrated.getCompletedSubModuleIds());
+        int score = leaderboardRepository.findByUserId(userId).orElseThrow().getScore();
+
+        progressService.completeSubModule(userId, moduleId, subModuleIds.get(1));
+
+        UserProgress completed = progress();
+        assertEquals("COMPLETED", completed.getStatus());
+        assertEquals(100, completed.getCompletionPercentage());
+        assertEquals(migrated.getCompletedAt(), completed.getCompletedAt());
+        assertEquals(score, leaderboardRepository.findByUserId(userId).orElseThrow().getScore());
+    }
+
+    @Test
+    void completedSubModulesCountTowardsTheModule() {
+        insertLegacy(subModuleDocument(subModuleIds.get(0), "Completed"));
+
+        migration.migrate();
+        UserProgress migrated = progress();
+        assertEquals("IN_PROGRESS", migrated.getStatus());
+        assertEquals(50, migrated.getCompletionPercentage());
+        assertEquals(List.of(subModuleIds.get(0)), migrated.getCompletedSubModuleIds());
+
+        progressService.completeSubModule(userId, moduleId, subModuleIds.get(1));
+
+        UserProgress completed = progress();
+        assertEquals("COMPLETED", completed.getStatus());
+        assertEquals(100, completed.getCompletionPercentage());
+        assertEquals(subModuleIds, completed.getCompletedSubModuleIds());
+    }
+
+    private Document subModuleDocument(String subModuleId, String status) {
+        return new Document("progressType", "subModule")
+                .append("subModule", new DBRef("subModules", new ObjectId(subModuleId)))
+                .append("status", status)
+                .append("completionPercentage", 100);
+    }
+
+    private void insertLegacy(Document document) {
+        document.append("user", new DBRef("users", new ObjectId(userId)))
+                .append("lastAccessedAt", new Date());
+        mongoTemplate.insert(document, LegacyProgressMigration.LEGACY_COLLECTION);
+    }
+
+    private UserProgress progress() {
+        return mongoTemplate.findOne(new Query(Criteria.where("userId").is(userId).and("moduleId").is(moduleId)),
+                UserProgress.class);
+    }
+}